@@ -1,12 +1,30 @@
 package com.example.dynamodb.dynamodbspringboot;
 
+import com.example.dynamodb.dynamodbspringboot.services.FeedBackfillRunner;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collections;
 
 @SpringBootApplication
 public class DynamoDBSpringBootApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(DynamoDBSpringBootApplication.class, args);
+		SpringApplication application = new SpringApplication(DynamoDBSpringBootApplication.class);
+
+		// A backfill runs as a one-off job: no web server, no Kafka consumption, and the JVM exits once it is done
+		boolean backfill = FeedBackfillRunner.isBackfill(args);
+		if(backfill) {
+			application.setWebApplicationType(WebApplicationType.NONE);
+			application.setDefaultProperties(Collections.singletonMap("spring.kafka.listener.auto-startup", "false"));
+		}
+
+		ConfigurableApplicationContext context = application.run(args);
+
+		if(backfill) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 }
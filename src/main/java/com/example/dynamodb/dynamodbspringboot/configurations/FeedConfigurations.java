@@ -0,0 +1,9 @@
+package com.example.dynamodb.dynamodbspringboot.configurations;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(FeedProperties.class)
+public class FeedConfigurations {
+}
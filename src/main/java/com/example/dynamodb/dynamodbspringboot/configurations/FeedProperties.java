@@ -0,0 +1,336 @@
+package com.example.dynamodb.dynamodbspringboot.configurations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@ConfigurationProperties("feeds")
+public class FeedProperties {
+  private final RecentWindow recentWindow = new RecentWindow();
+  private final Export export = new Export();
+  private final Hedging hedging = new Hedging();
+  private final Backfill backfill = new Backfill();
+  private final FlowControl flowControl = new FlowControl();
+  private final Dedupe dedupe = new Dedupe();
+  private final Alerts alerts = new Alerts();
+
+  public RecentWindow getRecentWindow() {
+    return recentWindow;
+  }
+
+  public Export getExport() {
+    return export;
+  }
+
+  public Hedging getHedging() {
+    return hedging;
+  }
+
+  public Backfill getBackfill() {
+    return backfill;
+  }
+
+  public FlowControl getFlowControl() {
+    return flowControl;
+  }
+
+  public Dedupe getDedupe() {
+    return dedupe;
+  }
+
+  public Alerts getAlerts() {
+    return alerts;
+  }
+
+  /**
+   * In-memory index of the most recent {@code F|} summaries written by this instance,
+   * bucketed by minute of {@code FTIME}. Only enable it when a single instance consumes every partition of the
+   * {@code feeds} topic, summaries written by other consumers are not in the window.
+   */
+  public static class RecentWindow {
+    private boolean enabled = false;
+    private int minutes = 60;
+    private int maxItemsPerBucket = 10000;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getMinutes() {
+      return minutes;
+    }
+
+    public void setMinutes(int minutes) {
+      this.minutes = minutes;
+    }
+
+    public int getMaxItemsPerBucket() {
+      return maxItemsPerBucket;
+    }
+
+    public void setMaxItemsPerBucket(int maxItemsPerBucket) {
+      this.maxItemsPerBucket = maxItemsPerBucket;
+    }
+  }
+
+  /**
+   * Parallel segmented scan of the feed table into one NDJSON file per segment.
+   */
+  public static class Export {
+    private Path directory = Paths.get("export");
+    private int segments = 4;
+    private int pageSize = 1000;
+    private double readCapacityShare = 0.25;
+    private long onDemandReadUnits = 100;
+    private boolean gzip = false;
+
+    public Path getDirectory() {
+      return directory;
+    }
+
+    public void setDirectory(Path directory) {
+      this.directory = directory;
+    }
+
+    public int getSegments() {
+      return segments;
+    }
+
+    public void setSegments(int segments) {
+      this.segments = segments;
+    }
+
+    public int getPageSize() {
+      return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+      this.pageSize = pageSize;
+    }
+
+    public double getReadCapacityShare() {
+      return readCapacityShare;
+    }
+
+    public void setReadCapacityShare(double readCapacityShare) {
+      this.readCapacityShare = readCapacityShare;
+    }
+
+    public long getOnDemandReadUnits() {
+      return onDemandReadUnits;
+    }
+
+    public void setOnDemandReadUnits(long onDemandReadUnits) {
+      this.onDemandReadUnits = onDemandReadUnits;
+    }
+
+    public boolean isGzip() {
+      return gzip;
+    }
+
+    public void setGzip(boolean gzip) {
+      this.gzip = gzip;
+    }
+  }
+
+  /**
+   * Duplicate point reads that have not answered after a delay and take whichever response arrives first.
+   */
+  public static class Hedging {
+    private boolean enabled = false;
+    private long delayMillis = 0;
+    private double percentile = 0.95;
+    private double maxHedgeRatio = 0.05;
+    private int threads = 16;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public long getDelayMillis() {
+      return delayMillis;
+    }
+
+    public void setDelayMillis(long delayMillis) {
+      this.delayMillis = delayMillis;
+    }
+
+    public double getPercentile() {
+      return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+      this.percentile = percentile;
+    }
+
+    public double getMaxHedgeRatio() {
+      return maxHedgeRatio;
+    }
+
+    public void setMaxHedgeRatio(double maxHedgeRatio) {
+      this.maxHedgeRatio = maxHedgeRatio;
+    }
+
+    public int getThreads() {
+      return threads;
+    }
+
+    public void setThreads(int threads) {
+      this.threads = threads;
+    }
+  }
+
+  /**
+   * Offline load of archived DPLogger log files, started with {@code --backfill=<file>[,<file>...]}.
+   */
+  public static class Backfill {
+    private long chunkSizeBytes = 64 * 1024 * 1024;
+    private int parserThreads = 4;
+    private int writerThreads = 4;
+    private int queueCapacity = 10000;
+    private double writeUnitsPerSecond = 1000;
+
+    public long getChunkSizeBytes() {
+      return chunkSizeBytes;
+    }
+
+    public void setChunkSizeBytes(long chunkSizeBytes) {
+      this.chunkSizeBytes = chunkSizeBytes;
+    }
+
+    public int getParserThreads() {
+      return parserThreads;
+    }
+
+    public void setParserThreads(int parserThreads) {
+      this.parserThreads = parserThreads;
+    }
+
+    public int getWriterThreads() {
+      return writerThreads;
+    }
+
+    public void setWriterThreads(int writerThreads) {
+      this.writerThreads = writerThreads;
+    }
+
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+    }
+
+    public double getWriteUnitsPerSecond() {
+      return writeUnitsPerSecond;
+    }
+
+    public void setWriteUnitsPerSecond(double writeUnitsPerSecond) {
+      this.writeUnitsPerSecond = writeUnitsPerSecond;
+    }
+  }
+
+  /**
+   * Bounded queue between the Kafka listener and the table writes, pausing the listener when it fills up or
+   * DynamoDB throttles. The capacity must leave room for {@code max.poll.records} above the high watermark.
+   */
+  public static class FlowControl {
+    private int queueCapacity = 1000;
+    private int highWatermark = 500;
+    private int lowWatermark = 200;
+    private long minBackoffMillis = 100;
+    private long maxBackoffMillis = 10000;
+
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+    }
+
+    public int getHighWatermark() {
+      return highWatermark;
+    }
+
+    public void setHighWatermark(int highWatermark) {
+      this.highWatermark = highWatermark;
+    }
+
+    public int getLowWatermark() {
+      return lowWatermark;
+    }
+
+    public void setLowWatermark(int lowWatermark) {
+      this.lowWatermark = lowWatermark;
+    }
+
+    public long getMinBackoffMillis() {
+      return minBackoffMillis;
+    }
+
+    public void setMinBackoffMillis(long minBackoffMillis) {
+      this.minBackoffMillis = minBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+      return maxBackoffMillis;
+    }
+
+    public void setMaxBackoffMillis(long maxBackoffMillis) {
+      this.maxBackoffMillis = maxBackoffMillis;
+    }
+  }
+
+  /**
+   * Bounded memory of recently written messages, skipping redelivered ones before they are written again.
+   */
+  public static class Dedupe {
+    private boolean enabled = true;
+    private int maxEntries = 100000;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+      return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+    }
+  }
+
+  /**
+   * Component statuses that put a feed summary in the sparse {@code AlertIdx} index, compared ignoring case.
+   */
+  public static class Alerts {
+    private List<String> statuses = new ArrayList<>(Arrays.asList("Failed", "Failure", "Error"));
+
+    public List<String> getStatuses() {
+      return statuses;
+    }
+
+    public void setStatuses(List<String> statuses) {
+      this.statuses = statuses;
+    }
+  }
+}
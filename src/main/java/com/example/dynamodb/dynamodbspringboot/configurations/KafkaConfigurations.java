@@ -0,0 +1,31 @@
+package com.example.dynamodb.dynamodbspringboot.configurations;
+
+import com.example.dynamodb.dynamodbspringboot.services.FeedWriteFlowControl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+
+@Configuration
+public class KafkaConfigurations {
+
+  /**
+   * The auto-configured listener container factory, with {@link FeedWriteFlowControl} told about revoked partitions.
+   * Listeners are not started when {@code spring.kafka.listener.auto-startup} is false, as during a backfill.
+   */
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory(
+    ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+    ConsumerFactory<Object, Object> kafkaConsumerFactory,
+    FeedWriteFlowControl feedWriteFlowControl,
+    @Value("${spring.kafka.listener.auto-startup:true}") boolean autoStartup
+  ) {
+    ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+    configurer.configure(factory, kafkaConsumerFactory);
+    factory.getContainerProperties().setConsumerRebalanceListener(feedWriteFlowControl);
+    factory.setAutoStartup(autoStartup);
+    return factory;
+  }
+}
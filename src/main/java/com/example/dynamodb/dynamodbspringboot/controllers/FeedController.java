@@ -2,10 +2,14 @@ package com.example.dynamodb.dynamodbspringboot.controllers;
 
 import com.example.dynamodb.dynamodbspringboot.model.Feed;
 import com.example.dynamodb.dynamodbspringboot.services.FeedService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
 
@@ -20,17 +24,57 @@ public class FeedController {
   @GetMapping("/feeds")
   public List<Feed> getFeeds(
     @RequestParam("id") final String id,
-    @RequestParam(value = "sort", required = false) final String sortKey
+    @RequestParam(value = "sort", required = false) final String sortKey,
+    final ServletWebRequest webRequest
   ) {
     if(!StringUtils.isEmpty(id) && !StringUtils.isEmpty(sortKey)) {
       return Collections.singletonList(feedService.getFeed(id, sortKey).orElse(null));
     } else if (!StringUtils.isEmpty(id)) {
-      return feedService.getFeedsById(id);
+      // Answers If-None-Match with 304 from the feed summary alone, without querying the partition
+      if(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+        Optional<String> summaryVersion = feedService.getFeedVersion(id);
+        if(summaryVersion.isPresent() && isNotModified(webRequest, summaryVersion.get())) {
+          webRequest.checkNotModified(summaryVersion.get());
+          return null;
+        }
+      }
+
+      // The ETag sent along is the one of the items returned, which may be newer than the summary read above
+      List<Feed> feeds = feedService.getFeedsById(id);
+      Optional<String> version = feedService.getFeedVersion(id, feeds);
+      if(version.isPresent() && webRequest.checkNotModified(version.get())) {
+        return null;
+      }
+
+      return feeds;
     }
 
     return Collections.emptyList();
   }
 
+  /**
+   * Matches an ETag against If-None-Match without setting it on the response, as checkNotModified would.
+   */
+  private static boolean isNotModified(final ServletWebRequest webRequest, final String etag) {
+    return new ServletWebRequest(webRequest.getRequest()).checkNotModified(etag);
+  }
+
+  @GetMapping("/feeds/history")
+  public List<Feed> getComponentHistory(
+    @RequestParam final String id,
+    @RequestParam final String component,
+    @RequestParam(required = false) final String status,
+    @RequestParam(required = false) final String from,
+    @RequestParam(required = false) final String to,
+    @RequestParam(required = false) final Integer latest
+  ) {
+    try {
+      return feedService.getComponentHistory(id, component, status, from, to, latest);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+    }
+  }
+
   @GetMapping("/feeds/range")
   public List<Feed> getFeedsByDateRange(
     @RequestParam final String day,
@@ -39,4 +83,17 @@ public class FeedController {
   ) {
     return feedService.getFeedByDateAndTimeRange(day, startTime, endTime);
   }
+
+  @GetMapping("/feeds/alerts")
+  public List<Feed> getAlertFeeds(
+    @RequestParam final String day,
+    @RequestParam(required = false) final String startTime,
+    @RequestParam(required = false) final String endTime
+  ) {
+    try {
+      return feedService.getAlertFeeds(day, startTime, endTime);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+    }
+  }
 }
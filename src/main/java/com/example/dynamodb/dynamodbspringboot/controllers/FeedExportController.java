@@ -0,0 +1,31 @@
+package com.example.dynamodb.dynamodbspringboot.controllers;
+
+import com.example.dynamodb.dynamodbspringboot.services.FeedExportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+public class FeedExportController {
+  private final FeedExportService feedExportService;
+
+  public FeedExportController(FeedExportService feedExportService) {
+    this.feedExportService = feedExportService;
+  }
+
+  @PostMapping("/feeds/export")
+  public ResponseEntity<Void> startExport() {
+    return feedExportService.startExport()
+      ? ResponseEntity.status(HttpStatus.ACCEPTED).build()
+      : ResponseEntity.status(HttpStatus.CONFLICT).build();
+  }
+
+  @GetMapping("/feeds/export")
+  public Map<String, Object> getExportStatus() {
+    return feedExportService.getStatus();
+  }
+}
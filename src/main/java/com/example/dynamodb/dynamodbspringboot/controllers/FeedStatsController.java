@@ -0,0 +1,36 @@
+package com.example.dynamodb.dynamodbspringboot.controllers;
+
+import com.example.dynamodb.dynamodbspringboot.services.FeedService;
+import com.example.dynamodb.dynamodbspringboot.services.FeedWriteFlowControl;
+import com.example.dynamodb.dynamodbspringboot.services.HedgedReads;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+public class FeedStatsController {
+  private final FeedService feedService;
+  private final HedgedReads hedgedReads;
+  private final FeedWriteFlowControl feedWriteFlowControl;
+
+  public FeedStatsController(
+    FeedService feedService,
+    HedgedReads hedgedReads,
+    FeedWriteFlowControl feedWriteFlowControl
+  ) {
+    this.feedService = feedService;
+    this.hedgedReads = hedgedReads;
+    this.feedWriteFlowControl = feedWriteFlowControl;
+  }
+
+  @GetMapping("/feeds/stats")
+  public Map<String, Long> getStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    feedService.getCoalescingStats().forEach((name, value) -> stats.put("coalescing." + name, value));
+    hedgedReads.getStats().forEach((name, value) -> stats.put("hedging." + name, value));
+    feedWriteFlowControl.getStats().forEach((name, value) -> stats.put("flowControl." + name, value));
+    return stats;
+  }
+}
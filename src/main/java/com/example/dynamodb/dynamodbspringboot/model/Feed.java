@@ -12,6 +12,9 @@ public class Feed {
   private String message;
   private String feedDay;
   private String feedTime;
+  private String alertDay;
+  private String alertTime;
+  private Long version;
 
   @DynamoDbPartitionKey
   public String getPK() {
@@ -69,6 +72,26 @@ public class Feed {
     this.feedTime = feedTime;
   }
 
+  @DynamoDbSecondaryPartitionKey(indexNames = "AlertIdx")
+  @DynamoDbAttribute("ALERT_DAY")
+  public String getAlertDay() {
+    return alertDay;
+  }
+
+  public void setAlertDay(String alertDay) {
+    this.alertDay = alertDay;
+  }
+
+  @DynamoDbSecondarySortKey(indexNames = "AlertIdx")
+  @DynamoDbAttribute("ALERT_TIME")
+  public String getAlertTime() {
+    return alertTime;
+  }
+
+  public void setAlertTime(String alertTime) {
+    this.alertTime = alertTime;
+  }
+
   @DynamoDbAttribute(value = "TIMESTAMP")
   public String getTimestamp() {
     return timestamp;
@@ -87,6 +110,19 @@ public class Feed {
     this.message = message;
   }
 
+  /**
+   * Bumped on an {@code F|} summary that is kept while component items are added under it, so that the version
+   * tag of the feed still changes.
+   */
+  @DynamoDbAttribute(value = "VERSION")
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
   @Override
   public String toString() {
     return "Feed{" +
@@ -98,6 +134,9 @@ public class Feed {
       ", message='" + message + '\'' +
       ", feedDay='" + feedDay + '\'' +
       ", feedTime='" + feedTime + '\'' +
+      ", alertDay='" + alertDay + '\'' +
+      ", alertTime='" + alertTime + '\'' +
+      ", version=" + version +
       '}';
   }
 }
@@ -0,0 +1,30 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces callers sharing a read or write capacity budget. Capacity is paid after the fact: each caller reports
+ * the units a request consumed and sleeps until the budget has caught up.
+ */
+class CapacityLimiter {
+  private final double unitsPerSecond;
+  private long nextFreeNanos = System.nanoTime();
+
+  CapacityLimiter(final double unitsPerSecond) {
+    this.unitsPerSecond = unitsPerSecond;
+  }
+
+  void consumed(final double units) throws InterruptedException {
+    long waitNanos;
+
+    synchronized (this) {
+      long now = System.nanoTime();
+      nextFreeNanos = Math.max(nextFreeNanos, now) + (long) (units / unitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+      waitNanos = nextFreeNanos - now;
+    }
+
+    if(waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+}
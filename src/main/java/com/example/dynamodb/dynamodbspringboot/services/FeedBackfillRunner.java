@@ -0,0 +1,47 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs a backfill on startup when the application is launched with {@code --backfill=<file>[,<file>...]}.
+ * The application is then started without web server and Kafka listeners, and exits once the backfill is done.
+ */
+@Component
+public class FeedBackfillRunner implements ApplicationRunner {
+  private static final String BACKFILL_OPTION = "backfill";
+
+  private final FeedBackfillService feedBackfillService;
+
+  public FeedBackfillRunner(FeedBackfillService feedBackfillService) {
+    this.feedBackfillService = feedBackfillService;
+  }
+
+  public static boolean isBackfill(String... args) {
+    return new DefaultApplicationArguments(args).containsOption(BACKFILL_OPTION);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    if(!args.containsOption(BACKFILL_OPTION)) {
+      return;
+    }
+
+    List<Path> files = args.getOptionValues(BACKFILL_OPTION).stream()
+      .flatMap(value -> Stream.of(value.split(",")))
+      .map(String::trim)
+      .filter(value -> !value.isEmpty())
+      .map(Paths::get)
+      .collect(Collectors.toList());
+
+    feedBackfillService.backfill(files);
+  }
+}
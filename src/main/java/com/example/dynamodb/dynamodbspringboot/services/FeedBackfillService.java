@@ -0,0 +1,513 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import com.example.dynamodb.dynamodbspringboot.model.Feed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.dynamodb.dynamodbspringboot.services.FeedService.FEED_TABLE_NAME;
+
+/**
+ * Loads archived DPLogger log files into the feed table.
+ *
+ * Files are split into line-aligned chunks that are memory-mapped and tokenized in parallel with
+ * {@link FeedService#tokenizeMessageToFeed(String)}. Component items are handed through a bounded queue to
+ * writer threads issuing rate-limited {@code BatchWriteItem} calls. Only the summary of the latest event of every
+ * feed, by timestamp with file order breaking ties, is written once all files have been parsed. Summaries are dated with the event time of their component
+ * and are put conditionally, so they never replace a summary of a later event. A summary that is kept instead has
+ * its version bumped, as component items were still added under it.
+ */
+@Service
+public class FeedBackfillService {
+  private static final Logger log = LoggerFactory.getLogger(FeedBackfillService.class);
+  private static final String UUID_TOKEN = "uuid:";
+  private static final int MAX_BATCH_SIZE = 25;
+  private static final int MAX_BATCH_ATTEMPTS = 8;
+  private static final long MAX_CHUNK_SIZE_BYTES = 1L << 30;
+  private static final int LINE_BREAK_PROBE_BYTES = 8192;
+  private static final long WRITER_CHECK_MILLIS = 100;
+  private static final Feed END_OF_INPUT = new Feed();
+
+  private final FeedService feedService;
+  private final DynamoDbEnhancedClient dynamoDbEnhancedClient;
+  private final DynamoDbClient dynamoDbClient;
+  private final DynamoDbTable<Feed> feedTable;
+  private final RecentFeedWindow recentFeedWindow;
+  private final FeedProperties.Backfill backfill;
+
+  public FeedBackfillService(
+    @NonNull final FeedService feedService,
+    @NonNull final DynamoDbEnhancedClient dynamoDbEnhancedClient,
+    @NonNull final DynamoDbClient dynamoDbClient,
+    @NonNull final RecentFeedWindow recentFeedWindow,
+    @NonNull final FeedProperties feedProperties
+  ) {
+    this.feedService = feedService;
+    this.dynamoDbEnhancedClient = dynamoDbEnhancedClient;
+    this.dynamoDbClient = dynamoDbClient;
+    this.recentFeedWindow = recentFeedWindow;
+    this.backfill = feedProperties.getBackfill();
+    feedTable = dynamoDbEnhancedClient.table(FEED_TABLE_NAME, TableSchema.fromBean(Feed.class));
+  }
+
+  public void backfill(@NonNull final List<Path> files) throws IOException, InterruptedException, ExecutionException {
+    WriteQueue queue = new WriteQueue(backfill.getQueueCapacity());
+    CapacityLimiter limiter = new CapacityLimiter(backfill.getWriteUnitsPerSecond());
+    ConcurrentMap<String, SummaryCandidate> latestSummaries = new ConcurrentHashMap<>();
+    Queue<Feed> writtenSummaries = new ConcurrentLinkedQueue<>();
+    Stats stats = new Stats();
+    long chunkSize = Math.max(1, Math.min(backfill.getChunkSizeBytes(), MAX_CHUNK_SIZE_BYTES));
+
+    ExecutorService writers = Executors.newFixedThreadPool(backfill.getWriterThreads());
+    ExecutorService parsers = Executors.newFixedThreadPool(Math.max(1, backfill.getParserThreads()));
+
+    try {
+      for(int i = 0; i < backfill.getWriterThreads(); i++) {
+        queue.writerTasks.add(writers.submit(() -> {
+          writeItems(queue, limiter, stats);
+          return null;
+        }));
+      }
+
+      List<Future<?>> parserTasks = new ArrayList<>();
+      for(int fileIndex = 0; fileIndex < files.size(); fileIndex++) {
+        Path file = files.get(fileIndex);
+        final int currentFile = fileIndex;
+
+        for(long[] chunk : lineAlignedChunks(file, chunkSize)) {
+          parserTasks.add(parsers.submit(() -> {
+            parseChunk(file, currentFile, chunk[0], chunk[1], queue, latestSummaries, stats);
+            return null;
+          }));
+        }
+      }
+
+      for(Future<?> parserTask : parserTasks) {
+        parserTask.get();
+      }
+      for(int i = 0; i < backfill.getWriterThreads(); i++) {
+        queue.put(END_OF_INPUT);
+      }
+      for(Future<?> writerTask : queue.writerTasks) {
+        writerTask.get();
+      }
+
+      // Summaries are written once every component item is, each one only if it is newer than the stored one
+      List<Future<?>> summaryTasks = new ArrayList<>();
+      Iterator<SummaryCandidate> summaries = latestSummaries.values().iterator();
+      for(int i = 0; i < backfill.getWriterThreads(); i++) {
+        summaryTasks.add(writers.submit(() -> {
+          writeSummaries(summaries, writtenSummaries, limiter, stats);
+          return null;
+        }));
+      }
+      for(Future<?> summaryTask : summaryTasks) {
+        summaryTask.get();
+      }
+    } finally {
+      parsers.shutdownNow();
+      writers.shutdownNow();
+    }
+
+    writtenSummaries.forEach(recentFeedWindow::record);
+
+    log.info(
+      "Backfill of {} file(s) done: {} lines, {} items parsed, {} lines rejected, {} items written, {} items failed, "
+        + "{} summaries older than the stored one",
+      files.size(), stats.lines.sum(), stats.parsed.sum(), stats.rejected.sum(), stats.written.sum(), stats.failed.sum(),
+      stats.outdated.sum()
+    );
+  }
+
+  /**
+   * Splits a file into chunks of about {@code chunkSize} bytes, each ending just past a line break or at the end
+   * of the file, so no line spans two chunks.
+   *
+   * @return the {@code [start, end)} byte offsets of the chunks, in file order
+   */
+  static List<long[]> lineAlignedChunks(final Path file, final long chunkSize) throws IOException {
+    List<long[]> chunks = new ArrayList<>();
+    ByteBuffer probe = ByteBuffer.allocate(LINE_BREAK_PROBE_BYTES);
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long start = 0;
+
+      while(start < size) {
+        long end = Math.min(size, start + chunkSize);
+
+        // Move the end of the chunk just past the next line break
+        long position = end - 1;
+        while(end < size) {
+          probe.clear();
+          int read = channel.read(probe, position);
+          if(read <= 0) {
+            end = size;
+            break;
+          }
+
+          int lineBreak = indexOfLineBreak(probe, read);
+          if(lineBreak >= 0) {
+            end = position + lineBreak + 1;
+            break;
+          }
+          position += read;
+          end = Math.min(size, position);
+        }
+
+        chunks.add(new long[] { start, end });
+        start = end;
+      }
+    }
+
+    return chunks;
+  }
+
+  private static int indexOfLineBreak(final ByteBuffer buffer, final int length) {
+    for(int i = 0; i < length; i++) {
+      if(buffer.get(i) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void parseChunk(
+    final Path file,
+    final int fileIndex,
+    final long start,
+    final long end,
+    final WriteQueue queue,
+    final ConcurrentMap<String, SummaryCandidate> latestSummaries,
+    final Stats stats
+  ) throws IOException, InterruptedException, ExecutionException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+      byte[] line = new byte[1024];
+      int length = 0;
+      long lineOffset = start;
+
+      while(buffer.hasRemaining()) {
+        byte b = buffer.get();
+
+        if(b == '\n') {
+          parseLine(line, length, fileIndex, lineOffset, queue, latestSummaries, stats);
+          length = 0;
+          lineOffset = start + buffer.position();
+        } else {
+          if(length == line.length) {
+            line = Arrays.copyOf(line, line.length * 2);
+          }
+          line[length++] = b;
+        }
+      }
+
+      if(length > 0) {
+        parseLine(line, length, fileIndex, lineOffset, queue, latestSummaries, stats);
+      }
+    }
+  }
+
+  private void parseLine(
+    final byte[] line,
+    final int length,
+    final int fileIndex,
+    final long lineOffset,
+    final WriteQueue queue,
+    final ConcurrentMap<String, SummaryCandidate> latestSummaries,
+    final Stats stats
+  ) throws InterruptedException, ExecutionException {
+    stats.lines.increment();
+
+    int trimmedLength = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+    String message = new String(line, 0, trimmedLength, StandardCharsets.UTF_8);
+
+    if(!message.contains(UUID_TOKEN)) {
+      return;
+    }
+
+    Optional<Feed> feed;
+    try {
+      feed = feedService.tokenizeMessageToFeed(message);
+    } catch (RuntimeException e) {
+      feed = Optional.empty();
+    }
+
+    if(!feed.isPresent()) {
+      stats.rejected.increment();
+      return;
+    }
+
+    Feed componentFeed = feed.get();
+    stats.parsed.increment();
+    queue.put(componentFeed);
+
+    SummaryCandidate candidate = new SummaryCandidate(fileIndex, lineOffset, feedService.eventSummaryOf(componentFeed));
+    latestSummaries.merge(componentFeed.getPK(), candidate, (current, next) -> current.isAfter(next) ? current : next);
+  }
+
+  private void writeItems(
+    final WriteQueue queue,
+    final CapacityLimiter limiter,
+    final Stats stats
+  ) throws InterruptedException {
+    List<Feed> batch = new ArrayList<>(MAX_BATCH_SIZE);
+
+    while(true) {
+      Feed feed = queue.take();
+
+      if(feed == END_OF_INPUT) {
+        writeBatch(batch, limiter, stats);
+        return;
+      }
+
+      batch.add(feed);
+      if(batch.size() == MAX_BATCH_SIZE) {
+        writeBatch(batch, limiter, stats);
+        batch.clear();
+      }
+    }
+  }
+
+  private void writeBatch(
+    final List<Feed> batch,
+    final CapacityLimiter limiter,
+    final Stats stats
+  ) throws InterruptedException {
+    // BatchWriteItem rejects a batch that puts the same key twice
+    Map<String, Feed> uniqueItems = new LinkedHashMap<>();
+    batch.forEach(feed -> uniqueItems.put(feed.getPK() + "|" + feed.getSK(), feed));
+    List<Feed> pending = new ArrayList<>(uniqueItems.values());
+
+    for(int attempt = 0; !pending.isEmpty(); attempt++) {
+      if(attempt == MAX_BATCH_ATTEMPTS) {
+        log.error("Giving up on {} items after {} attempts", pending.size(), MAX_BATCH_ATTEMPTS);
+        stats.failed.add(pending.size());
+        return;
+      }
+      if(attempt > 0) {
+        TimeUnit.MILLISECONDS.sleep(50L << attempt);
+      }
+
+      WriteBatch.Builder<Feed> writeBatch = WriteBatch.builder(Feed.class).mappedTableResource(feedTable);
+      pending.forEach(writeBatch::addPutItem);
+
+      try {
+        BatchWriteResult result = dynamoDbEnhancedClient.batchWriteItem(r -> r.addWriteBatch(writeBatch.build()));
+        List<Feed> unprocessed = result.unprocessedPutItemsForTable(feedTable);
+
+        stats.written.add(pending.size() - unprocessed.size());
+        limiter.consumed(pending.size() - unprocessed.size());
+        pending = unprocessed;
+      } catch (ProvisionedThroughputExceededException e) {
+        log.warn("Throttled writing {} items, retrying", pending.size());
+      } catch (SdkException e) {
+        log.error("Failed writing {} items: {}", pending.size(), e.getMessage());
+        stats.failed.add(pending.size());
+        return;
+      }
+    }
+  }
+
+  private void writeSummaries(
+    final Iterator<SummaryCandidate> summaries,
+    final Queue<Feed> writtenSummaries,
+    final CapacityLimiter limiter,
+    final Stats stats
+  ) throws InterruptedException {
+    while(true) {
+      Feed summary;
+      synchronized (summaries) {
+        if(!summaries.hasNext()) {
+          return;
+        }
+        summary = summaries.next().feed;
+      }
+
+      if(writeSummary(summary, limiter, stats)) {
+        writtenSummaries.add(summary);
+      }
+    }
+  }
+
+  /**
+   * Puts a summary unless the stored one reflects a later component event, which a live write or a more recent
+   * archive may already have written.
+   *
+   * @return true if the summary was written
+   */
+  private boolean writeSummary(
+    final Feed summary,
+    final CapacityLimiter limiter,
+    final Stats stats
+  ) throws InterruptedException {
+    Expression olderThanSummary = Expression.builder()
+      .expression("attribute_not_exists(#timestamp) OR #timestamp < :timestamp")
+      .putExpressionName("#timestamp", "TIMESTAMP")
+      .putExpressionValue(":timestamp", AttributeValue.builder().s(summary.getTimestamp()).build())
+      .build();
+
+    for(int attempt = 0; attempt < MAX_BATCH_ATTEMPTS; attempt++) {
+      if(attempt > 0) {
+        TimeUnit.MILLISECONDS.sleep(50L << attempt);
+      }
+
+      try {
+        feedTable.putItem(PutItemEnhancedRequest.builder(Feed.class)
+          .item(summary)
+          .conditionExpression(olderThanSummary)
+          .build());
+
+        stats.written.increment();
+        limiter.consumed(1);
+        return true;
+      } catch (ConditionalCheckFailedException e) {
+        stats.outdated.increment();
+        limiter.consumed(1);
+        bumpVersion(summary, limiter, stats);
+        return false;
+      } catch (ProvisionedThroughputExceededException e) {
+        log.warn("Throttled writing summary of {}, retrying", summary.getPK());
+      } catch (SdkException e) {
+        log.error("Failed writing summary of {}: {}", summary.getPK(), e.getMessage());
+        stats.failed.increment();
+        return false;
+      }
+    }
+
+    log.error("Giving up on summary of {} after {} attempts", summary.getPK(), MAX_BATCH_ATTEMPTS);
+    stats.failed.increment();
+    return false;
+  }
+
+  /**
+   * Bumps the version of a stored summary that was kept over the backfilled one. Its content is unchanged, so
+   * without the bump the version tag of the feed would not reflect the component items backfilled under it.
+   */
+  private void bumpVersion(
+    final Feed summary,
+    final CapacityLimiter limiter,
+    final Stats stats
+  ) throws InterruptedException {
+    Map<String, AttributeValue> key = new HashMap<>();
+    key.put("PK", AttributeValue.builder().s(summary.getPK()).build());
+    key.put("SK", AttributeValue.builder().s(summary.getSK()).build());
+
+    for(int attempt = 0; attempt < MAX_BATCH_ATTEMPTS; attempt++) {
+      if(attempt > 0) {
+        TimeUnit.MILLISECONDS.sleep(50L << attempt);
+      }
+
+      try {
+        dynamoDbClient.updateItem(r -> r
+          .tableName(FEED_TABLE_NAME)
+          .key(key)
+          .updateExpression("ADD #version :one")
+          .expressionAttributeNames(Collections.singletonMap("#version", "VERSION"))
+          .expressionAttributeValues(Collections.singletonMap(":one", AttributeValue.builder().n("1").build()))
+        );
+
+        limiter.consumed(1);
+        return;
+      } catch (ProvisionedThroughputExceededException e) {
+        log.warn("Throttled bumping version of summary of {}, retrying", summary.getPK());
+      } catch (SdkException e) {
+        log.error("Failed bumping version of summary of {}: {}", summary.getPK(), e.getMessage());
+        stats.failed.increment();
+        return;
+      }
+    }
+
+    log.error("Giving up on version of summary of {} after {} attempts", summary.getPK(), MAX_BATCH_ATTEMPTS);
+    stats.failed.increment();
+  }
+
+  /**
+   * Queue between parsers and writers that stops producers once a writer has died, as nothing would drain it.
+   */
+  private static final class WriteQueue {
+    private final BlockingQueue<Feed> queue;
+    private final List<Future<?>> writerTasks = new ArrayList<>();
+
+    private WriteQueue(final int capacity) {
+      this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    private void put(final Feed feed) throws InterruptedException, ExecutionException {
+      while(!queue.offer(feed, WRITER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+        for(Future<?> writerTask : writerTasks) {
+          if(writerTask.isDone()) {
+            // Rethrows the failure of a writer, a writer only returns normally once it took END_OF_INPUT
+            writerTask.get();
+          }
+        }
+      }
+    }
+
+    private Feed take() throws InterruptedException {
+      return queue.take();
+    }
+  }
+
+  /**
+   * A summary together with the position of its line, ordered by event time as archives need not be passed in
+   * chronological order, and by position among events of the same second.
+   */
+  static final class SummaryCandidate {
+    private static final Comparator<SummaryCandidate> EVENT_ORDER = Comparator
+      .comparing(
+        (SummaryCandidate candidate) -> candidate.feed.getTimestamp(),
+        Comparator.nullsFirst(Comparator.<String>naturalOrder())
+      )
+      .thenComparingInt(candidate -> candidate.fileIndex)
+      .thenComparingLong(candidate -> candidate.lineOffset);
+
+    private final int fileIndex;
+    private final long lineOffset;
+    private final Feed feed;
+
+    SummaryCandidate(final int fileIndex, final long lineOffset, final Feed feed) {
+      this.fileIndex = fileIndex;
+      this.lineOffset = lineOffset;
+      this.feed = feed;
+    }
+
+    boolean isAfter(final SummaryCandidate other) {
+      return EVENT_ORDER.compare(this, other) > 0;
+    }
+  }
+
+  private static final class Stats {
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder parsed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder outdated = new LongAdder();
+  }
+}
@@ -1,24 +1,26 @@
 package com.example.dynamodb.dynamodbspringboot.services;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-
 @Service
 public class FeedConsumer {
+  static final String LISTENER_ID = "feedConsumer";
+
   private final Logger logger = LoggerFactory.getLogger(FeedConsumer.class);
-  private final FeedService feedService;
+  private final FeedWriteFlowControl feedWriteFlowControl;
 
-  public FeedConsumer(FeedService feedService) {
-    this.feedService = feedService;
+  public FeedConsumer(FeedWriteFlowControl feedWriteFlowControl) {
+    this.feedWriteFlowControl = feedWriteFlowControl;
   }
 
-  @KafkaListener(topics = "feeds", groupId = "group_id")
-  public void consume(String message) throws IOException {
-    logger.info(String.format("#### -> Consumed message -> %s", message));
-    feedService.createFeedItem(message);
+  @KafkaListener(id = LISTENER_ID, topics = "feeds", groupId = "group_id")
+  public void consume(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+    logger.info(String.format("#### -> Consumed message -> %s", record.value()));
+    feedWriteFlowControl.submit(record, acknowledgment);
   }
 }
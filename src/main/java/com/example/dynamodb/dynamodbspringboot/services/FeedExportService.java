@@ -0,0 +1,326 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static com.example.dynamodb.dynamodbspringboot.services.FeedService.FEED_TABLE_NAME;
+
+/**
+ * Exports the feed table with a parallel segmented scan, one NDJSON (optionally gzip) file per segment.
+ *
+ * After every page the segment file is flushed and a checkpoint holding the file position and the
+ * {@code lastEvaluatedKey} is replaced atomically. Re-running an interrupted export truncates each file back to
+ * its checkpoint and resumes the scan from there, skipping completed segments. Once every segment is complete, the
+ * next run replaces the export with a fresh one.
+ */
+@Service
+public class FeedExportService {
+  private static final Logger log = LoggerFactory.getLogger(FeedExportService.class);
+
+  private final DynamoDbClient dynamoDbClient;
+  private final ObjectMapper objectMapper;
+  private final FeedProperties.Export export;
+  private final AtomicBoolean running = new AtomicBoolean();
+  private volatile Map<String, Object> lastOutcome = outcome(ExportState.IDLE, 0, null);
+
+  public enum ExportState { IDLE, RUNNING, SUCCEEDED, FAILED }
+
+  public FeedExportService(
+    @NonNull final DynamoDbClient dynamoDbClient,
+    @NonNull final ObjectMapper objectMapper,
+    @NonNull final FeedProperties feedProperties
+  ) {
+    this.dynamoDbClient = dynamoDbClient;
+    this.objectMapper = objectMapper;
+    this.export = feedProperties.getExport();
+  }
+
+  public boolean isRunning() {
+    return running.get();
+  }
+
+  /**
+   * Returns the state of the running or last export with its item count, and the error it failed with.
+   */
+  public Map<String, Object> getStatus() {
+    return lastOutcome;
+  }
+
+  /**
+   * Starts an export in the background.
+   *
+   * @return false if an export is already running
+   */
+  public boolean startExport() {
+    if(!running.compareAndSet(false, true)) {
+      return false;
+    }
+
+    lastOutcome = outcome(ExportState.RUNNING, 0, null);
+
+    Thread exportThread = new Thread(() -> {
+      try {
+        lastOutcome = outcome(ExportState.SUCCEEDED, exportTable(), null);
+      } catch (Exception e) {
+        log.error("Export of {} failed", FEED_TABLE_NAME, e);
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        lastOutcome = outcome(ExportState.FAILED, 0, String.valueOf(cause.getMessage()));
+      } finally {
+        running.set(false);
+      }
+    }, "feed-export");
+    exportThread.start();
+
+    return true;
+  }
+
+  long exportTable() throws IOException, InterruptedException, ExecutionException {
+    Files.createDirectories(export.getDirectory());
+
+    int totalSegments = export.getSegments();
+    if(isComplete(totalSegments)) {
+      log.info("Previous export of {} is complete, starting a fresh one", FEED_TABLE_NAME);
+      for(int segment = 0; segment < totalSegments; segment++) {
+        Files.deleteIfExists(dataFile(segment, totalSegments));
+        Files.deleteIfExists(checkpointFile(segment, totalSegments));
+      }
+    }
+
+    CapacityLimiter limiter = new CapacityLimiter(readUnitsPerSecond());
+    ExecutorService workers = Executors.newFixedThreadPool(totalSegments);
+
+    try {
+      List<Future<Long>> segments = new ArrayList<>();
+      for(int segment = 0; segment < totalSegments; segment++) {
+        final int current = segment;
+        segments.add(workers.submit(() -> exportSegment(current, totalSegments, limiter)));
+      }
+
+      long items = 0;
+      for(Future<Long> segment : segments) {
+        items += segment.get();
+      }
+
+      log.info("Exported {} items of {} to {}", items, FEED_TABLE_NAME, export.getDirectory());
+      return items;
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  private double readUnitsPerSecond() {
+    ProvisionedThroughputDescription throughput = dynamoDbClient.describeTable(r -> r.tableName(FEED_TABLE_NAME))
+      .table()
+      .provisionedThroughput();
+
+    // On-demand tables report zero provisioned capacity
+    long capacity = throughput != null && throughput.readCapacityUnits() != null && throughput.readCapacityUnits() > 0
+      ? throughput.readCapacityUnits()
+      : export.getOnDemandReadUnits();
+
+    return Math.max(1, capacity * export.getReadCapacityShare());
+  }
+
+  private long exportSegment(
+    final int segment,
+    final int totalSegments,
+    final CapacityLimiter limiter
+  ) throws IOException, InterruptedException {
+    Path dataFile = dataFile(segment, totalSegments);
+    Path checkpointFile = checkpointFile(segment, totalSegments);
+    Checkpoint checkpoint = readCheckpoint(checkpointFile);
+
+    if(checkpoint.complete) {
+      log.info("Segment {} of {} already exported", segment, totalSegments);
+      return 0;
+    }
+
+    long items = 0;
+    ByteArrayOutputStream pageBuffer = new ByteArrayOutputStream(64 * 1024);
+
+    try (FileChannel channel = FileChannel.open(
+      dataFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE
+    )) {
+      // Drop anything written after the last checkpoint
+      channel.truncate(checkpoint.position);
+      channel.position(checkpoint.position);
+
+      do {
+        ScanRequest.Builder scanRequest = ScanRequest.builder()
+          .tableName(FEED_TABLE_NAME)
+          .segment(segment)
+          .totalSegments(totalSegments)
+          .limit(export.getPageSize())
+          .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+
+        if(checkpoint.lastEvaluatedKey != null) {
+          scanRequest.exclusiveStartKey(toKey(checkpoint.lastEvaluatedKey));
+        }
+
+        ScanResponse page = dynamoDbClient.scan(scanRequest.build());
+
+        pageBuffer.reset();
+        writePage(page.items(), pageBuffer);
+        channel.write(ByteBuffer.wrap(pageBuffer.toByteArray()));
+        channel.force(false);
+        items += page.items().size();
+
+        checkpoint.position = channel.position();
+        checkpoint.lastEvaluatedKey = page.lastEvaluatedKey() == null || page.lastEvaluatedKey().isEmpty()
+          ? null
+          : fromKey(page.lastEvaluatedKey());
+        checkpoint.complete = checkpoint.lastEvaluatedKey == null;
+        saveCheckpoint(checkpoint, checkpointFile);
+
+        if(page.consumedCapacity() != null && page.consumedCapacity().capacityUnits() != null) {
+          limiter.consumed(page.consumedCapacity().capacityUnits());
+        }
+      } while (!checkpoint.complete);
+    }
+
+    log.info("Segment {} of {} exported {} items", segment, totalSegments, items);
+    return items;
+  }
+
+  private boolean isComplete(final int totalSegments) throws IOException {
+    for(int segment = 0; segment < totalSegments; segment++) {
+      if(!readCheckpoint(checkpointFile(segment, totalSegments)).complete) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Checkpoint readCheckpoint(final Path checkpointFile) throws IOException {
+    return Files.exists(checkpointFile)
+      ? objectMapper.readValue(checkpointFile.toFile(), Checkpoint.class)
+      : new Checkpoint();
+  }
+
+  private Path dataFile(final int segment, final int totalSegments) {
+    return export.getDirectory().resolve(baseName(segment, totalSegments) + (export.isGzip() ? ".ndjson.gz" : ".ndjson"));
+  }
+
+  private Path checkpointFile(final int segment, final int totalSegments) {
+    return export.getDirectory().resolve(baseName(segment, totalSegments) + ".checkpoint");
+  }
+
+  private static String baseName(final int segment, final int totalSegments) {
+    return String.format("%s-%d-of-%d", FEED_TABLE_NAME, segment, totalSegments);
+  }
+
+  private void writePage(
+    final List<Map<String, AttributeValue>> items,
+    final OutputStream pageBuffer
+  ) throws IOException {
+    // Each page is a complete gzip member, so a truncated file always ends on a member boundary
+    OutputStream out = export.isGzip() ? new GZIPOutputStream(pageBuffer) : pageBuffer;
+
+    for(Map<String, AttributeValue> item : items) {
+      Map<String, Object> attributes = new LinkedHashMap<>();
+      item.forEach((name, value) -> attributes.put(name, toJsonValue(value)));
+
+      out.write(objectMapper.writeValueAsBytes(attributes));
+      out.write('\n');
+    }
+
+    if(out != pageBuffer) {
+      // Closing the page buffer is a no-op, this only finishes the member and releases the deflater
+      out.close();
+    }
+  }
+
+  private void saveCheckpoint(final Checkpoint checkpoint, final Path checkpointFile) throws IOException {
+    Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+
+    objectMapper.writeValue(tempFile.toFile(), checkpoint);
+    Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Maps an attribute to its plain JSON form: numbers as JSON numbers, binaries as base64 and sets as arrays.
+   * An empty list and an empty map cannot be told apart and are both written as an empty array.
+   */
+  static Object toJsonValue(final AttributeValue value) {
+    if(value.s() != null) {
+      return value.s();
+    }
+    if(value.n() != null) {
+      return new BigDecimal(value.n());
+    }
+    if(value.bool() != null) {
+      return value.bool();
+    }
+    if(value.b() != null) {
+      return value.b().asByteArray();
+    }
+    if(Boolean.TRUE.equals(value.nul())) {
+      return null;
+    }
+    if(!value.ss().isEmpty()) {
+      return value.ss();
+    }
+    if(!value.ns().isEmpty()) {
+      return value.ns().stream().map(BigDecimal::new).collect(Collectors.toList());
+    }
+    if(!value.bs().isEmpty()) {
+      return value.bs().stream().map(SdkBytes::asByteArray).collect(Collectors.toList());
+    }
+    if(!value.m().isEmpty()) {
+      Map<String, Object> map = new LinkedHashMap<>();
+      value.m().forEach((name, nested) -> map.put(name, toJsonValue(nested)));
+      return map;
+    }
+
+    return value.l().stream().map(FeedExportService::toJsonValue).collect(Collectors.toList());
+  }
+
+  private static Map<String, Object> outcome(final ExportState state, final long items, final String error) {
+    Map<String, Object> outcome = new LinkedHashMap<>();
+    outcome.put("state", state);
+    outcome.put("items", items);
+    outcome.put("error", error);
+    return Collections.unmodifiableMap(outcome);
+  }
+
+  private static Map<String, AttributeValue> toKey(final Map<String, String> key) {
+    Map<String, AttributeValue> result = new HashMap<>();
+    key.forEach((name, value) -> result.put(name, AttributeValue.builder().s(value).build()));
+    return result;
+  }
+
+  private static Map<String, String> fromKey(final Map<String, AttributeValue> key) {
+    Map<String, String> result = new HashMap<>();
+    key.forEach((name, value) -> result.put(name, value.s()));
+    return result;
+  }
+
+  static class Checkpoint {
+    public long position;
+    public Map<String, String> lastEvaluatedKey;
+    public boolean complete;
+  }
+}
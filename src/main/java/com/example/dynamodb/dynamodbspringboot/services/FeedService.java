@@ -1,43 +1,84 @@
 package com.example.dynamodb.dynamodbspringboot.services;
 
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
 import com.example.dynamodb.dynamodbspringboot.model.Feed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 import software.amazon.awssdk.core.pagination.sync.SdkIterable;
 import software.amazon.awssdk.enhanced.dynamodb.*;
 import software.amazon.awssdk.enhanced.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toMap;
 import static software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional.keyEqualTo;
+import static software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional.sortBeginsWith;
 import static software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional.sortBetween;
 
 @Service
 public class FeedService {
   private static final Logger log = LoggerFactory.getLogger(FeedService.class);
-  private static final String FEED_TABLE_NAME = "FeedMgmt";
+  static final String FEED_TABLE_NAME = "FeedMgmt";
   private static final String UUID_TOKEN = "uuid:";
   private static final String COMPONENT_SORT_KEY_FORMAT = "C|%s|%s|%s";
   private static final String FEED_SORT_KEY_FORMAT = "F|%s";
+  private static final String COMPONENT_SORT_KEY_PREFIX_FORMAT = "C|%s|";
+  private static final String COMPONENT_STATUS_SORT_KEY_PREFIX_FORMAT = "C|%s|%s|";
+  // Sorts after every timestamp digit, making an upper bound inclusive of all timestamps it prefixes
+  private static final String TIMESTAMP_UPPER_BOUND_SUFFIX = "~";
+  private static final DateTimeFormatter EVENT_TIMESTAMP_FORMAT =
+    DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+  private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
 
   private final DynamoDbEnhancedClient dynamoDbEnhancedClient;
+  private final DynamoDbClient dynamoDbClient;
   private final DynamoDbTable<Feed> feedTable;
+  private final RecentFeedWindow recentFeedWindow;
+  private final HedgedReads hedgedReads;
+  private final RecentMessageFilter recentMessageFilter;
+  private final Set<String> alertStatuses;
+  private final SingleFlight<String, List<Feed>> feedsByIdQueries = new SingleFlight<>();
+  private final SingleFlight<List<String>, List<Feed>> feedsByRangeQueries = new SingleFlight<>();
 
-  public FeedService(@NonNull final DynamoDbEnhancedClient dynamoDbEnhancedClient) {
+  public FeedService(
+    @NonNull final DynamoDbEnhancedClient dynamoDbEnhancedClient,
+    @NonNull final DynamoDbClient dynamoDbClient,
+    @NonNull final RecentFeedWindow recentFeedWindow,
+    @NonNull final HedgedReads hedgedReads,
+    @NonNull final RecentMessageFilter recentMessageFilter,
+    @NonNull final FeedProperties feedProperties
+  ) {
     this.dynamoDbEnhancedClient = dynamoDbEnhancedClient;
+    this.dynamoDbClient = dynamoDbClient;
+    this.recentFeedWindow = recentFeedWindow;
+    this.hedgedReads = hedgedReads;
+    this.recentMessageFilter = recentMessageFilter;
+    this.alertStatuses = feedProperties.getAlerts().getStatuses().stream()
+      .map(status -> status.toLowerCase(Locale.ROOT))
+      .collect(Collectors.toSet());
     feedTable = dynamoDbEnhancedClient.table(FEED_TABLE_NAME, TableSchema.fromBean(Feed.class));
   }
 
   public List<Feed> getFeedsById(final String uuid) {
+    return feedsByIdQueries.execute(uuid, () -> queryFeedsById(uuid));
+  }
+
+  private List<Feed> queryFeedsById(final String uuid) {
     List<Feed> results = Collections.emptyList();
 
     try {
@@ -45,7 +86,7 @@ public class FeedService {
         keyEqualTo(Key.builder().partitionValue(uuid).build())
       );
 
-      results = pagedResults.items().stream().collect(Collectors.toList());
+      results = Collections.unmodifiableList(pagedResults.items().stream().collect(Collectors.toList()));
     } catch (DynamoDbException e) {
       System.err.println(e.getMessage());
     }
@@ -53,6 +94,135 @@ public class FeedService {
     return results;
   }
 
+  /**
+   * Returns the history items of one component of a feed, narrowed by the sort key instead of reading the
+   * whole partition.
+   *
+   * @param status optional, restricts the items to one status of the component
+   * @param from optional inclusive lower bound, a {@code yyyyMMddHHmmss} timestamp or prefix of one; requires status
+   * @param to optional inclusive upper bound, a {@code yyyyMMddHHmmss} timestamp or prefix of one; requires status
+   * @param latest optional, returns only this many most recent items of the status; requires status
+   * @throws IllegalArgumentException if a range or {@code latest} is given without a status, or {@code latest} is
+   * not positive
+   */
+  public List<Feed> getComponentHistory(
+    final String uuid,
+    final String component,
+    final String status,
+    final String from,
+    final String to,
+    final Integer latest
+  ) {
+    boolean timeRange = !StringUtils.isEmpty(from) || !StringUtils.isEmpty(to);
+    if(timeRange && StringUtils.isEmpty(status)) {
+      throw new IllegalArgumentException("A timestamp range requires a component status");
+    }
+    // Across statuses the sort key orders by status first, so the last items are not the most recent ones
+    if(latest != null && StringUtils.isEmpty(status)) {
+      throw new IllegalArgumentException("Latest items require a component status");
+    }
+    if(latest != null && latest <= 0) {
+      throw new IllegalArgumentException("The number of latest items must be positive");
+    }
+
+    QueryConditional queryConditional;
+    if(timeRange) {
+      String prefix = String.format(COMPONENT_STATUS_SORT_KEY_PREFIX_FORMAT, component, status);
+      queryConditional = sortBetween(
+        k -> k.partitionValue(uuid).sortValue(prefix + (StringUtils.isEmpty(from) ? "" : from)),
+        k -> k.partitionValue(uuid).sortValue(prefix + (StringUtils.isEmpty(to) ? "" : to) + TIMESTAMP_UPPER_BOUND_SUFFIX)
+      );
+    } else {
+      String prefix = StringUtils.isEmpty(status)
+        ? String.format(COMPONENT_SORT_KEY_PREFIX_FORMAT, component)
+        : String.format(COMPONENT_STATUS_SORT_KEY_PREFIX_FORMAT, component, status);
+      queryConditional = sortBeginsWith(k -> k.partitionValue(uuid).sortValue(prefix));
+    }
+
+    QueryEnhancedRequest.Builder queryRequest = QueryEnhancedRequest.builder().queryConditional(queryConditional);
+    Stream<Feed> items;
+
+    if(latest != null) {
+      queryRequest.scanIndexForward(false).limit(latest);
+      items = feedTable.query(queryRequest.build()).items().stream().limit(latest);
+    } else {
+      items = feedTable.query(queryRequest.build()).items().stream();
+    }
+
+    return items.collect(Collectors.toList());
+  }
+
+  /**
+   * Returns a version tag for the items of a feed, derived from its {@code F|} summary with a projected
+   * {@code getItem}, to answer a conditional request without querying the partition. Empty if the feed has no
+   * summary.
+   */
+  public Optional<String> getFeedVersion(final String uuid) {
+    Map<String, AttributeValue> key = new HashMap<>();
+    key.put("PK", AttributeValue.builder().s(uuid).build());
+    key.put("SK", AttributeValue.builder().s(String.format(FEED_SORT_KEY_FORMAT, uuid)).build());
+
+    Map<String, String> projectedNames = new HashMap<>();
+    projectedNames.put("#comp", "COMP");
+    projectedNames.put("#cstat", "CSTAT");
+    projectedNames.put("#ts", "TIMESTAMP");
+    projectedNames.put("#version", "VERSION");
+
+    try {
+      Map<String, AttributeValue> summary = hedgedReads.execute(() -> dynamoDbClient.getItem(r -> r
+        .tableName(FEED_TABLE_NAME)
+        .key(key)
+        .projectionExpression("#comp, #cstat, #ts, #version")
+        .expressionAttributeNames(projectedNames)
+      ).item());
+
+      if(summary == null || summary.isEmpty()) {
+        return Optional.empty();
+      }
+
+      return Optional.of(versionOf(
+        summary.containsKey("COMP") ? summary.get("COMP").s() : null,
+        summary.containsKey("CSTAT") ? summary.get("CSTAT").s() : null,
+        summary.containsKey("TIMESTAMP") ? summary.get("TIMESTAMP").s() : null,
+        summary.containsKey("VERSION") ? summary.get("VERSION").n() : null
+      ));
+    } catch (DynamoDbException e) {
+      log.warn("Could not read summary of feed {}: {}", uuid, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns the version tag of feed items already read, from the {@code F|} summary among them. Empty if the
+   * items contain no summary.
+   */
+  public Optional<String> getFeedVersion(final String uuid, final List<Feed> feeds) {
+    String summarySortKey = String.format(FEED_SORT_KEY_FORMAT, uuid);
+
+    return feeds.stream()
+      .filter(feed -> summarySortKey.equals(feed.getSK()))
+      .findFirst()
+      .map(summary -> versionOf(
+        summary.getComponent(),
+        summary.getComponentStatus(),
+        summary.getTimestamp(),
+        summary.getVersion() == null ? null : summary.getVersion().toString()
+      ));
+  }
+
+  private static String versionOf(
+    final String component,
+    final String componentStatus,
+    final String timestamp,
+    final String itemsVersion
+  ) {
+    String version = Stream.of(component, componentStatus, timestamp, itemsVersion)
+      .map(value -> value == null ? "" : value)
+      .collect(Collectors.joining("|"));
+
+    return DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8));
+  }
+
   public List<Feed> getFeedsByIds(@NonNull final List<String> ids) {
     ReadBatch.Builder<Feed> readBatchBuilder = ReadBatch.builder(Feed.class).mappedTableResource(feedTable);
     ids.forEach(id -> readBatchBuilder.addGetItem(Key.builder().partitionValue(id).build()));
@@ -68,6 +238,22 @@ public class FeedService {
     final String date,
     final String startTime,
     final String endTime
+  ) {
+    Optional<List<Feed>> recentFeeds = recentFeedWindow.find(date, startTime, endTime);
+    if(recentFeeds.isPresent()) {
+      return recentFeeds.get();
+    }
+
+    return feedsByRangeQueries.execute(
+      Arrays.asList(date, startTime, endTime),
+      () -> queryFeedsByDateAndTimeRange(date, startTime, endTime)
+    );
+  }
+
+  private List<Feed> queryFeedsByDateAndTimeRange(
+    final String date,
+    final String startTime,
+    final String endTime
   ) {
     DynamoDbIndex<Feed> feedsByDateIndex = feedTable.index("DateIdx");
 
@@ -80,7 +266,46 @@ public class FeedService {
       )
     );
 
-    return feedsInDateRange.stream()
+    return Collections.unmodifiableList(
+      feedsInDateRange.stream()
+        .flatMap(feedPage -> feedPage.items().stream())
+        .collect(Collectors.toList())
+    );
+  }
+
+  /**
+   * Number of DynamoDB queries issued (leaders) and of callers that shared an in-flight query (coalesced).
+   */
+  public Map<String, Long> getCoalescingStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("feedsById.leaders", feedsByIdQueries.getLeaders());
+    stats.put("feedsById.coalesced", feedsByIdQueries.getCoalesced());
+    stats.put("feedsByRange.leaders", feedsByRangeQueries.getLeaders());
+    stats.put("feedsByRange.coalesced", feedsByRangeQueries.getCoalesced());
+    return stats;
+  }
+
+  /**
+   * Returns the feeds whose summary is in an alert status, from the sparse {@code AlertIdx} index.
+   * Without a time range the whole day is returned.
+   *
+   * @throws IllegalArgumentException if only one bound of the time range is given
+   */
+  public List<Feed> getAlertFeeds(final String date, final String startTime, final String endTime) {
+    if(StringUtils.isEmpty(startTime) != StringUtils.isEmpty(endTime)) {
+      throw new IllegalArgumentException("A time range requires both a start and an end time");
+    }
+
+    DynamoDbIndex<Feed> alertsByDateIndex = feedTable.index("AlertIdx");
+
+    QueryConditional queryConditional = StringUtils.isEmpty(startTime)
+      ? keyEqualTo(k -> k.partitionValue(date))
+      : sortBetween(
+          k -> k.partitionValue(date).sortValue(startTime),
+          k -> k.partitionValue(date).sortValue(endTime)
+        );
+
+    return alertsByDateIndex.query(r -> r.queryConditional(queryConditional)).stream()
       .flatMap(feedPage -> feedPage.items().stream())
       .collect(Collectors.toList());
   }
@@ -90,7 +315,7 @@ public class FeedService {
 
     try {
       feed = Optional.ofNullable(
-        feedTable.getItem(Key.builder().partitionValue(id).sortValue(sortKey).build())
+        hedgedReads.execute(() -> feedTable.getItem(Key.builder().partitionValue(id).sortValue(sortKey).build()))
       );
     } catch (DynamoDbException e) {
       System.err.println(e.getMessage());
@@ -99,16 +324,22 @@ public class FeedService {
     return feed;
   }
 
-  public void createFeedItem(String message) {
+  /**
+   * Writes the component item parsed from a message and the updated feed summary.
+   *
+   * @return false if DynamoDB left items unprocessed and the message has to be written again
+   */
+  public boolean createFeedItem(String message) {
     Optional<Feed> feed = tokenizeMessageToFeed(message);
 
+    if(feed.isPresent() && recentMessageFilter.contains(message)) {
+      log.debug("Skipping already written message for feed {}", feed.get().getPK());
+      return true;
+    }
+
     if(feed.isPresent()) {
       Feed componentFeed = feed.get();
-      Feed feedItemToUpdate = getFeedItemToUpdate(
-        componentFeed.getPK(),
-        componentFeed.getComponent(),
-        componentFeed.getComponentStatus()
-      );
+      Feed feedItemToUpdate = summaryOf(componentFeed);
 
       BatchWriteItemEnhancedRequest batchWriteItemEnhancedRequest = BatchWriteItemEnhancedRequest.builder()
         .writeBatches(
@@ -119,24 +350,72 @@ public class FeedService {
             .build()
         ).build();
 
-      dynamoDbEnhancedClient.batchWriteItem(batchWriteItemEnhancedRequest);
+      BatchWriteResult batchWriteResult = dynamoDbEnhancedClient.batchWriteItem(batchWriteItemEnhancedRequest);
+      if(!batchWriteResult.unprocessedPutItemsForTable(feedTable).isEmpty()) {
+        return false;
+      }
+
+      recentFeedWindow.record(feedItemToUpdate);
+      recentMessageFilter.add(message);
     }
+
+    return true;
+  }
+
+  /**
+   * Builds the {@code F|} summary item reflecting a component item.
+   */
+  Feed summaryOf(final Feed componentFeed) {
+    return summaryOf(componentFeed, LocalDateTime.now());
+  }
+
+  /**
+   * Builds the {@code F|} summary item of a component item written after the fact, dated with the event time of
+   * the component rather than the time of the write.
+   */
+  Feed eventSummaryOf(final Feed componentFeed) {
+    if(StringUtils.isEmpty(componentFeed.getTimestamp())) {
+      return summaryOf(componentFeed);
+    }
+
+    try {
+      return summaryOf(componentFeed, LocalDateTime.parse(componentFeed.getTimestamp(), TIMESTAMP_FORMAT));
+    } catch (DateTimeParseException e) {
+      return summaryOf(componentFeed);
+    }
+  }
+
+  private Feed summaryOf(final Feed componentFeed, final LocalDateTime updatedAt) {
+    Feed feedItemToUpdate = getFeedItemToUpdate(
+      componentFeed.getPK(),
+      componentFeed.getComponent(),
+      componentFeed.getComponentStatus(),
+      updatedAt
+    );
+    feedItemToUpdate.setTimestamp(componentFeed.getTimestamp());
+
+    return feedItemToUpdate;
   }
 
   private Feed getFeedItemToUpdate(
     final String pk,
     final String component,
-    final String componentStatus
+    final String componentStatus,
+    final LocalDateTime updatedAt
   ) {
-    LocalDateTime now = LocalDateTime.now();
-
     Feed feedItem = new Feed();
     feedItem.setPK(pk);
     feedItem.setSK(String.format(FEED_SORT_KEY_FORMAT, pk));
     feedItem.setComponent(component);
     feedItem.setComponentStatus(componentStatus);
-    feedItem.setFeedDay(now.format(DateTimeFormatter.ofPattern("yyyyMMdd")));
-    feedItem.setFeedTime(now.format(DateTimeFormatter.ofPattern("HHmm")));
+    feedItem.setFeedDay(updatedAt.format(DateTimeFormatter.ofPattern("yyyyMMdd")));
+    feedItem.setFeedTime(updatedAt.format(DateTimeFormatter.ofPattern("HHmm")));
+
+    // Only summaries in an alert status are written to the sparse AlertIdx index
+    if(componentStatus != null && alertStatuses.contains(componentStatus.toLowerCase(Locale.ROOT))) {
+      feedItem.setAlertDay(feedItem.getFeedDay());
+      feedItem.setAlertTime(feedItem.getFeedTime());
+    }
 
     return feedItem;
   }
@@ -148,9 +427,9 @@ public class FeedService {
 
     Map<String, String> result = Stream.of(message.split(","))
       .map(s -> s.contains(UUID_TOKEN) ? s.substring(s.indexOf(UUID_TOKEN)).trim(): s.trim())
-      .map(s -> s.split(":"))
-      .filter(s -> !StringUtils.isEmpty(s[1]) && !"null".equalsIgnoreCase(s[1].trim()))
-      .collect(toMap(k -> k[0], v -> v[1].trim()));
+      .map(s -> s.split(":", 2)) // Keep values such as the event timestamp that contain ':' intact
+      .filter(s -> s.length == 2 && !StringUtils.isEmpty(s[1]) && !"null".equalsIgnoreCase(s[1].trim()))
+      .collect(toMap(k -> k[0], v -> v[1].trim(), (first, second) -> first));
 
     if(!result.keySet().containsAll(Arrays.asList("uuid", "component", "status", "msg"))) {
       log.error("Message is missing key attributes that are needed in dynamodb table");
@@ -162,11 +441,32 @@ public class FeedService {
     feed.setComponent(result.get("component"));
     feed.setComponentStatus(result.get("status"));
     feed.setMessage(result.get("msg"));
-    feed.setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
+    feed.setTimestamp(
+      eventTime(result.get("timestamp")).format(TIMESTAMP_FORMAT)
+    );
     feed.setSK(
       String.format(COMPONENT_SORT_KEY_FORMAT, feed.getComponent(), feed.getComponentStatus(), feed.getTimestamp())
     );
 
     return Optional.of(feed);
   }
+
+  /**
+   * Event time of a message so that redeliveries map to the same component item, falling back to the
+   * current time when the message carries no parsable timestamp.
+   */
+  private LocalDateTime eventTime(final String timestamp) {
+    if(StringUtils.isEmpty(timestamp)) {
+      return LocalDateTime.now();
+    }
+
+    try {
+      return ZonedDateTime.parse(timestamp, EVENT_TIMESTAMP_FORMAT)
+        .withZoneSameInstant(ZoneId.systemDefault())
+        .toLocalDateTime();
+    } catch (DateTimeParseException e) {
+      log.warn("Could not parse event timestamp '{}', using current time", timestamp);
+      return LocalDateTime.now();
+    }
+  }
 }
@@ -0,0 +1,306 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decouples the Kafka listener from the table writes through a bounded queue drained by a single writer, so
+ * messages are written and acknowledged in the order they were consumed.
+ *
+ * The listener container is paused while the queue is above its high watermark or DynamoDB is throttling, and
+ * resumed once the queue has drained below its low watermark and the backoff has passed. A paused container keeps
+ * polling, so slow writes no longer exceed {@code max.poll.interval.ms} and trigger rebalances.
+ *
+ * The listener never blocks. The queue must hold a whole poll above the high watermark, as the records already
+ * polled keep coming after the pause; if it still overflows, the record is nacked and redelivered after the
+ * backoff. Records of revoked partitions are dropped unacknowledged, their new owner consumes them again.
+ *
+ * Failed writes are retried with the backoff, unless DynamoDB rejected the request as invalid (a 4xx other than
+ * throttling) or it could not be built from the message: retrying those could never succeed, so the message is
+ * dropped and acknowledged.
+ */
+@Component
+public class FeedWriteFlowControl implements ConsumerAwareRebalanceListener {
+  private static final Logger log = LoggerFactory.getLogger(FeedWriteFlowControl.class);
+
+  private final FeedService feedService;
+  private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+  private final FeedProperties.FlowControl flowControl;
+  private final BlockingQueue<PendingWrite> queue;
+  private final Thread writer;
+  private final Object revocationLock = new Object();
+  private final AtomicLong submitted = new AtomicLong();
+  // Per partition, the sequence number of the last record submitted before it was revoked; guarded by revocationLock
+  private final Map<TopicPartition, Long> revokedUpTo = new HashMap<>();
+
+  private volatile PendingWrite inFlight;
+  private volatile long throttledUntil;
+  private long backoffMillis;
+
+  private final LongAdder throttles = new LongAdder();
+  private final LongAdder unprocessed = new LongAdder();
+  private final LongAdder pauses = new LongAdder();
+  private final LongAdder overflows = new LongAdder();
+  private final LongAdder revoked = new LongAdder();
+
+  public FeedWriteFlowControl(
+    FeedService feedService,
+    KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+    FeedProperties feedProperties,
+    @Value("${spring.kafka.consumer.max-poll-records:500}") int maxPollRecords
+  ) {
+    this.feedService = feedService;
+    this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+    this.flowControl = feedProperties.getFlowControl();
+
+    if(flowControl.getQueueCapacity() < flowControl.getHighWatermark() + maxPollRecords) {
+      throw new IllegalStateException(String.format(
+        "feeds.flow-control.queue-capacity (%d) must be at least feeds.flow-control.high-watermark (%d) plus "
+          + "spring.kafka.consumer.max-poll-records (%d)",
+        flowControl.getQueueCapacity(), flowControl.getHighWatermark(), maxPollRecords
+      ));
+    }
+
+    this.queue = new ArrayBlockingQueue<>(flowControl.getQueueCapacity());
+    this.writer = new Thread(this::writeMessages, "feed-writer");
+    this.writer.setDaemon(true);
+  }
+
+  @PostConstruct
+  public void start() {
+    writer.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    // Messages still queued are not acknowledged and will be redelivered
+    writer.interrupt();
+  }
+
+  /**
+   * Queues a consumed record without blocking. Must be called on the consumer thread, as a record that does not
+   * fit in the queue is nacked: it and the rest of the poll are redelivered after the backoff.
+   */
+  public void submit(final ConsumerRecord<String, String> record, final Acknowledgment acknowledgment) {
+    PendingWrite pendingWrite = new PendingWrite(
+      submitted.incrementAndGet(),
+      new TopicPartition(record.topic(), record.partition()),
+      record.value(),
+      acknowledgment
+    );
+
+    if(!queue.offer(pendingWrite)) {
+      log.warn("Write queue full, redelivering {} from offset {}", pendingWrite.partition, record.offset());
+      overflows.increment();
+      updateFlow();
+      acknowledgment.nack(flowControl.getMinBackoffMillis());
+      return;
+    }
+
+    updateFlow();
+  }
+
+  /**
+   * Drops the queued records of revoked partitions before the container commits, and stops retrying the one being
+   * written, so that none of them is acknowledged on behalf of the partitions' new owner.
+   */
+  @Override
+  public void onPartitionsRevokedBeforeCommit(
+    final Consumer<?, ?> consumer,
+    final Collection<TopicPartition> partitions
+  ) {
+    int dropped = 0;
+
+    synchronized (revocationLock) {
+      partitions.forEach(partition -> revokedUpTo.put(partition, submitted.get()));
+
+      for(Iterator<PendingWrite> pendingWrites = queue.iterator(); pendingWrites.hasNext(); ) {
+        if(partitions.contains(pendingWrites.next().partition)) {
+          pendingWrites.remove();
+          dropped++;
+        }
+      }
+
+      PendingWrite current = inFlight;
+      if(current != null && partitions.contains(current.partition)) {
+        current.revoked = true;
+      }
+    }
+
+    if(dropped > 0) {
+      revoked.add(dropped);
+      log.info("Dropped {} queued messages of revoked partitions {}", dropped, partitions);
+    }
+  }
+
+  public Map<String, Long> getStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("queued", (long) queue.size());
+    stats.put("inFlight", inFlight != null ? 1L : 0L);
+    stats.put("throttles", throttles.sum());
+    stats.put("unprocessed", unprocessed.sum());
+    stats.put("pauses", pauses.sum());
+    stats.put("overflows", overflows.sum());
+    stats.put("revoked", revoked.sum());
+    return stats;
+  }
+
+  private void writeMessages() {
+    try {
+      while(!Thread.currentThread().isInterrupted()) {
+        // Wake up regularly so the container is resumed even when nothing is queued
+        PendingWrite pendingWrite = queue.poll(flowControl.getMinBackoffMillis(), TimeUnit.MILLISECONDS);
+
+        if(pendingWrite != null) {
+          synchronized (revocationLock) {
+            // A revocation between the poll and here found the message neither queued nor in flight
+            Long revokedSequence = revokedUpTo.get(pendingWrite.partition);
+            if(revokedSequence != null && pendingWrite.sequence <= revokedSequence) {
+              pendingWrite.revoked = true;
+              revoked.increment();
+            }
+            inFlight = pendingWrite;
+          }
+
+          try {
+            write(pendingWrite);
+          } finally {
+            inFlight = null;
+          }
+        }
+        updateFlow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write(final PendingWrite pendingWrite) throws InterruptedException {
+    while(!pendingWrite.revoked) {
+      long waitMillis = throttledUntil - System.currentTimeMillis();
+      if(waitMillis > 0) {
+        updateFlow();
+        TimeUnit.MILLISECONDS.sleep(waitMillis);
+      }
+
+      try {
+        if(feedService.createFeedItem(pendingWrite.message)) {
+          backoffMillis = 0;
+          acknowledge(pendingWrite);
+          return;
+        }
+
+        unprocessed.increment();
+        backOff();
+      } catch (SdkServiceException e) {
+        if(e.isThrottlingException()) {
+          throttles.increment();
+        } else if(isInvalidRequest(e)) {
+          log.error("Dropping message that was rejected: {}", pendingWrite.message, e);
+          acknowledge(pendingWrite);
+          return;
+        } else {
+          log.warn("Retrying message after service error {}: {}", e.statusCode(), e.getMessage());
+        }
+        backOff();
+      } catch (SdkClientException e) {
+        log.warn("Retrying message after client error: {}", e.getMessage());
+        backOff();
+      } catch (IllegalArgumentException e) {
+        log.error("Dropping message that could not be written: {}", pendingWrite.message, e);
+        acknowledge(pendingWrite);
+        return;
+      } catch (RuntimeException e) {
+        log.warn("Retrying message after error: {}", e.getMessage());
+        backOff();
+      }
+    }
+  }
+
+  /**
+   * A 4xx other than throttling rejects the request itself, for instance a validation error, which no retry fixes.
+   */
+  private static boolean isInvalidRequest(final SdkServiceException e) {
+    return !e.retryable() && e.statusCode() >= 400 && e.statusCode() < 500;
+  }
+
+  private void acknowledge(final PendingWrite pendingWrite) {
+    synchronized (revocationLock) {
+      // The partition's new owner consumes the message again from the last committed offset
+      if(!pendingWrite.revoked) {
+        pendingWrite.acknowledgment.acknowledge();
+      }
+    }
+  }
+
+  private void backOff() {
+    backoffMillis = backoffMillis == 0
+      ? flowControl.getMinBackoffMillis()
+      : Math.min(flowControl.getMaxBackoffMillis(), backoffMillis * 2);
+    throttledUntil = System.currentTimeMillis() + backoffMillis;
+  }
+
+  private synchronized void updateFlow() {
+    MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(FeedConsumer.LISTENER_ID);
+    if(container == null) {
+      return;
+    }
+
+    boolean throttled = throttledUntil > System.currentTimeMillis();
+    int queued = queue.size();
+
+    if(!container.isPauseRequested() && (throttled || queued >= flowControl.getHighWatermark())) {
+      log.warn("Pausing feed consumer: {} messages queued, throttled: {}", queued, throttled);
+      pauses.increment();
+      container.pause();
+    } else if(container.isPauseRequested() && !throttled && queued <= flowControl.getLowWatermark()) {
+      log.info("Resuming feed consumer: {} messages queued", queued);
+      container.resume();
+    }
+  }
+
+  private static final class PendingWrite {
+    private final long sequence;
+    private final TopicPartition partition;
+    private final String message;
+    private final Acknowledgment acknowledgment;
+    private volatile boolean revoked;
+
+    private PendingWrite(
+      final long sequence,
+      final TopicPartition partition,
+      final String message,
+      final Acknowledgment acknowledgment
+    ) {
+      this.sequence = sequence;
+      this.partition = partition;
+      this.message = message;
+      this.acknowledgment = acknowledgment;
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedging policy for idempotent point reads. A read that has not completed after the hedge delay is issued a
+ * second time and the first successful response wins.
+ *
+ * The delay is either fixed or the configured percentile of recently observed read latencies; no hedge is
+ * sent until enough latencies have been observed. Every read earns {@code maxHedgeRatio} of a hedge, which
+ * caps the extra load hedging can add.
+ *
+ * Reads and hedges share a pool of {@code threads} threads without a queue. When every thread is busy a read
+ * runs on the caller thread without a hedge, and a hedge is simply not sent.
+ */
+@Component
+public class HedgedReads {
+  private static final int LATENCY_SAMPLES = 1024;
+  private static final int RECOMPUTE_EVERY = 64;
+  private static final double MAX_HEDGE_CREDITS = 10;
+
+  private final FeedProperties.Hedging hedging;
+  private final ExecutorService executor;
+
+  private final long[] latencies = new long[LATENCY_SAMPLES];
+  private int nextLatency;
+  private int latencyCount;
+  private int latenciesSinceRecompute;
+  private volatile long hedgeDelayNanos = -1;
+  private double hedgeCredits;
+
+  private final LongAdder reads = new LongAdder();
+  private final LongAdder hedgesIssued = new LongAdder();
+  private final LongAdder hedgesWon = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  public HedgedReads(FeedProperties feedProperties) {
+    this.hedging = feedProperties.getHedging();
+    this.executor = hedging.isEnabled() ? boundedExecutor(Math.max(1, hedging.getThreads())) : null;
+
+    if(hedging.getDelayMillis() > 0) {
+      hedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(hedging.getDelayMillis());
+    }
+  }
+
+  public <T> T execute(final Supplier<T> read) {
+    if(!hedging.isEnabled()) {
+      return read.get();
+    }
+
+    reads.increment();
+    earnHedgeCredit();
+
+    HedgedRead<T> hedgedRead = new HedgedRead<>();
+    if(!submit(read, false, hedgedRead)) {
+      rejected.increment();
+      return timed(read);
+    }
+
+    try {
+      long delay = hedgeDelayNanos;
+      if(delay < 0) {
+        return hedgedRead.result.get();
+      }
+
+      try {
+        return hedgedRead.result.get(delay, TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        if(!hedgedRead.result.isDone() && spendHedgeCredit()) {
+          if(submit(read, true, hedgedRead)) {
+            hedgesIssued.increment();
+          } else {
+            refundHedgeCredit();
+            rejected.increment();
+          }
+        }
+        return hedgedRead.result.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for read");
+    } catch (ExecutionException e) {
+      if(e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if(e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new CompletionException(e.getCause());
+    }
+  }
+
+  public Map<String, Long> getStats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("reads", reads.sum());
+    stats.put("hedgesIssued", hedgesIssued.sum());
+    stats.put("hedgesWon", hedgesWon.sum());
+    stats.put("rejected", rejected.sum());
+    stats.put("delayMillis", hedgeDelayNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos));
+    return stats;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if(executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs an attempt on the pool.
+   *
+   * @return false if every thread is busy
+   */
+  private <T> boolean submit(final Supplier<T> read, final boolean hedge, final HedgedRead<T> hedgedRead) {
+    hedgedRead.pendingAttempts.incrementAndGet();
+
+    try {
+      executor.execute(() -> {
+        try {
+          if(hedgedRead.result.complete(timed(read)) && hedge) {
+            hedgesWon.increment();
+          }
+        } catch (Throwable e) {
+          hedgedRead.failed(e);
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      hedgedRead.finished();
+      return false;
+    }
+  }
+
+  private <T> T timed(final Supplier<T> read) {
+    long start = System.nanoTime();
+    T value = read.get();
+    recordLatency(System.nanoTime() - start);
+    return value;
+  }
+
+  private synchronized void earnHedgeCredit() {
+    hedgeCredits = Math.min(MAX_HEDGE_CREDITS, hedgeCredits + hedging.getMaxHedgeRatio());
+  }
+
+  private synchronized boolean spendHedgeCredit() {
+    if(hedgeCredits < 1) {
+      return false;
+    }
+
+    hedgeCredits -= 1;
+    return true;
+  }
+
+  private synchronized void refundHedgeCredit() {
+    hedgeCredits = Math.min(MAX_HEDGE_CREDITS, hedgeCredits + 1);
+  }
+
+  private synchronized void recordLatency(final long latencyNanos) {
+    latencies[nextLatency] = latencyNanos;
+    nextLatency = (nextLatency + 1) % LATENCY_SAMPLES;
+    latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+
+    if(hedging.getDelayMillis() <= 0 && ++latenciesSinceRecompute >= RECOMPUTE_EVERY) {
+      latenciesSinceRecompute = 0;
+
+      long[] samples = Arrays.copyOf(latencies, latencyCount);
+      Arrays.sort(samples);
+      hedgeDelayNanos = samples[Math.min(samples.length - 1, (int) (samples.length * hedging.getPercentile()))];
+    }
+  }
+
+  private static ExecutorService boundedExecutor(final int threads) {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+      threads, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), daemonThreads()
+    );
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static ThreadFactory daemonThreads() {
+    AtomicInteger threadNumber = new AtomicInteger();
+
+    return runnable -> {
+      Thread thread = new Thread(runnable, "hedged-read-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static final class HedgedRead<T> {
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final AtomicInteger pendingAttempts = new AtomicInteger();
+    private volatile Throwable lastFailure;
+
+    private void failed(final Throwable e) {
+      lastFailure = e;
+      finished();
+    }
+
+    private void finished() {
+      // Only fail once every attempt has failed, another one may still succeed
+      if(pendingAttempts.decrementAndGet() == 0 && lastFailure != null) {
+        result.completeExceptionally(lastFailure);
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import com.example.dynamodb.dynamodbspringboot.model.Feed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Bounded, time-bucketed index of the {@code F|} summaries written by this instance.
+ *
+ * The window only knows about summaries this instance wrote itself. When several consumers share the
+ * {@code feeds} topic, each one only sees the summaries of its own partitions, so the window must only be
+ * enabled when a single instance consumes every partition; otherwise ranges answered from it miss feeds.
+ *
+ * Summaries are kept in a ring of minute buckets keyed by {@code FDAY}/{@code FTIME}. A bucket slot is
+ * recycled as soon as its minute falls out of the window, so memory is capped at
+ * {@code minutes * maxItemsPerBucket} summaries. Range queries are only answered when every requested minute
+ * is covered by the window, was observed since this instance started and did not overflow; callers fall back
+ * to the {@code DateIdx} index otherwise.
+ */
+@Component
+public class RecentFeedWindow {
+  private static final DateTimeFormatter MINUTE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+  private final boolean enabled;
+  private final int maxItemsPerBucket;
+  private final Bucket[] buckets;
+  private final Map<String, Long> minuteByPk = new HashMap<>();
+  private final long coveredSince;
+  private final Clock clock;
+
+  @Autowired
+  public RecentFeedWindow(FeedProperties feedProperties) {
+    this(feedProperties, Clock.systemDefaultZone());
+  }
+
+  RecentFeedWindow(FeedProperties feedProperties, Clock clock) {
+    this.clock = clock;
+    FeedProperties.RecentWindow recentWindow = feedProperties.getRecentWindow();
+    this.enabled = recentWindow.isEnabled() && recentWindow.getMinutes() > 0;
+    this.maxItemsPerBucket = recentWindow.getMaxItemsPerBucket();
+    this.buckets = new Bucket[enabled ? recentWindow.getMinutes() : 0];
+    // The minute this instance starts in may already hold summaries it never saw
+    this.coveredSince = epochMinute(LocalDateTime.now(clock)) + 1;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Records a summary that has been written to the table, moving it out of the bucket of its previous write.
+   */
+  public synchronized void record(final Feed summary) {
+    if(!enabled) {
+      return;
+    }
+
+    // The summary has moved in DateIdx even when its new minute is outside the window
+    Long previousMinute = minuteByPk.remove(summary.getPK());
+    if(previousMinute != null) {
+      Bucket previous = buckets[slot(previousMinute)];
+      if(previous != null && previous.minute == previousMinute) {
+        previous.feeds.remove(summary.getPK());
+      }
+    }
+
+    Optional<Long> minute = parseMinute(summary.getFeedDay(), summary.getFeedTime());
+    long now = epochMinute(LocalDateTime.now(clock));
+
+    if(!minute.isPresent() || minute.get() <= now - buckets.length) {
+      return;
+    }
+
+    Bucket bucket = bucketFor(minute.get());
+    if(bucket.feeds.size() >= maxItemsPerBucket) {
+      bucket.complete = false;
+      return;
+    }
+
+    bucket.feeds.put(summary.getPK(), summary);
+    minuteByPk.put(summary.getPK(), minute.get());
+  }
+
+  /**
+   * Returns the summaries of {@code day} between {@code startTime} and {@code endTime} (inclusive, {@code HHmm}),
+   * or empty if the window cannot answer the whole range.
+   */
+  public synchronized Optional<List<Feed>> find(final String day, final String startTime, final String endTime) {
+    if(!enabled) {
+      return Optional.empty();
+    }
+
+    Optional<Long> start = parseMinute(day, startTime);
+    Optional<Long> end = parseMinute(day, endTime);
+    long now = epochMinute(LocalDateTime.now(clock));
+
+    if(!start.isPresent() || !end.isPresent() || start.get() > end.get()) {
+      return Optional.empty();
+    }
+
+    long first = start.get();
+    long last = Math.min(end.get(), now);
+
+    if(first <= now - buckets.length || first < coveredSince) {
+      return Optional.empty();
+    }
+
+    List<Feed> results = new ArrayList<>();
+    for(long minute = first; minute <= last; minute++) {
+      Bucket bucket = buckets[slot(minute)];
+
+      if(bucket == null || bucket.minute != minute) {
+        continue;
+      }
+      if(!bucket.complete) {
+        return Optional.empty();
+      }
+
+      results.addAll(bucket.feeds.values());
+    }
+
+    return Optional.of(results);
+  }
+
+  private Bucket bucketFor(final long minute) {
+    int slot = slot(minute);
+    Bucket evicted = buckets[slot];
+
+    if(evicted != null && evicted.minute == minute) {
+      return evicted;
+    }
+    if(evicted != null) {
+      evicted.feeds.keySet().forEach(pk -> minuteByPk.remove(pk, evicted.minute));
+    }
+
+    Bucket bucket = new Bucket(minute);
+    buckets[slot] = bucket;
+    return bucket;
+  }
+
+  private int slot(final long minute) {
+    return (int) Math.floorMod(minute, (long) buckets.length);
+  }
+
+  private static Optional<Long> parseMinute(final String day, final String time) {
+    if(day == null || time == null) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(epochMinute(LocalDateTime.parse(day + time, MINUTE_FORMAT)));
+    } catch (DateTimeParseException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static long epochMinute(final LocalDateTime dateTime) {
+    return dateTime.truncatedTo(ChronoUnit.MINUTES).toEpochSecond(ZoneOffset.UTC) / 60;
+  }
+
+  private static final class Bucket {
+    private final long minute;
+    private final Map<String, Feed> feeds = new LinkedHashMap<>();
+    private boolean complete = true;
+
+    private Bucket(final long minute) {
+      this.minute = minute;
+    }
+  }
+}
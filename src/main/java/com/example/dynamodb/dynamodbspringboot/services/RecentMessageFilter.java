@@ -0,0 +1,58 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU set of digests of the messages most recently written, used to skip Kafka redeliveries after a
+ * rebalance or retry. Holds at most {@code maxEntries} digests.
+ */
+@Component
+public class RecentMessageFilter {
+  private final boolean enabled;
+  private final Map<String, Boolean> digests;
+
+  public RecentMessageFilter(FeedProperties feedProperties) {
+    FeedProperties.Dedupe dedupe = feedProperties.getDedupe();
+    int maxEntries = dedupe.getMaxEntries();
+
+    this.enabled = dedupe.isEnabled() && maxEntries > 0;
+    this.digests = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  public boolean contains(final String message) {
+    if(!enabled) {
+      return false;
+    }
+
+    String digest = digest(message);
+    synchronized (digests) {
+      return digests.get(digest) != null;
+    }
+  }
+
+  public void add(final String message) {
+    if(!enabled) {
+      return;
+    }
+
+    String digest = digest(message);
+    synchronized (digests) {
+      digests.put(digest, Boolean.TRUE);
+    }
+  }
+
+  private static String digest(final String message) {
+    return DigestUtils.md5DigestAsHex(message.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,63 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into a single load. The first caller (the leader) runs the
+ * loader, callers arriving while it is in flight wait for and share its result or failure. Results are shared
+ * between callers, so they must not be mutated.
+ */
+class SingleFlight<K, V> {
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder leaders = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  V execute(final K key, final Supplier<V> loader) {
+    CompletableFuture<V> call = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+
+    if(existing != null) {
+      coalesced.increment();
+      return await(existing);
+    }
+
+    leaders.increment();
+    try {
+      V result = loader.get();
+      call.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      call.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, call);
+    }
+  }
+
+  long getLeaders() {
+    return leaders.sum();
+  }
+
+  long getCoalesced() {
+    return coalesced.sum();
+  }
+
+  private static <V> V await(final CompletableFuture<V> call) {
+    try {
+      return call.join();
+    } catch (CompletionException e) {
+      if(e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if(e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -2,12 +2,19 @@ package com.example.dynamodb.dynamodbspringboot;
 
 import com.example.dynamodb.dynamodbspringboot.controllers.FeedController;
 import com.example.dynamodb.dynamodbspringboot.model.Feed;
+import com.example.dynamodb.dynamodbspringboot.services.FeedBackfillService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
@@ -16,10 +23,14 @@ import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 
 @SpringBootTest
@@ -35,6 +46,9 @@ class DynamoDBSpringBootApplicationTests extends BaseIntegrationTest {
   @Autowired
   private FeedController feedController;
 
+  @Autowired
+  private FeedBackfillService feedBackfillService;
+
   @BeforeEach
   void setup() {
     final TableSchema<Feed> FEED_TABLE_SCHEMA = TableSchema.fromBean(Feed.class);
@@ -47,6 +61,10 @@ class DynamoDBSpringBootApplicationTests extends BaseIntegrationTest {
     dynamoDbClient.deleteTable(DeleteTableRequest.builder().tableName(TABLE_NAME).build());
   }
 
+  private static ServletWebRequest newWebRequest() {
+    return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+  }
+
   @Test
   @DisplayName("Check Application Context Loads")
   void contextLoads() {
@@ -96,7 +114,7 @@ class DynamoDBSpringBootApplicationTests extends BaseIntegrationTest {
     feedTable.putItem(feed);
 
     // WHEN
-    List<Feed> results = feedController.getFeeds("1", "1");
+    List<Feed> results = feedController.getFeeds("1", "1", newWebRequest());
 
     // THEN
     assertNotNull(results);
@@ -145,7 +163,7 @@ class DynamoDBSpringBootApplicationTests extends BaseIntegrationTest {
     ));
 
     // WHEN
-    List<Feed> results = feedController.getFeeds("1", null);
+    List<Feed> results = feedController.getFeeds("1", null, newWebRequest());
 
     // THEN
     assertNotNull(results);
@@ -166,4 +184,198 @@ class DynamoDBSpringBootApplicationTests extends BaseIntegrationTest {
       components
     );
   }
+
+  @Test
+  @DisplayName("Test Get Feeds API answers If-None-Match with not modified from the feed summary")
+  void testGetFeedsAPIConditionalRequest() {
+    // GIVEN
+    final DynamoDbTable<Feed> feedTable = dynamoDbEnhancedClient.table(TABLE_NAME, TableSchema.fromBean(Feed.class));
+    Feed summary = new Feed();
+    summary.setPK("1");
+    summary.setSK("F|1");
+    summary.setComponent("TestComponent");
+    summary.setComponentStatus("COMPLETED");
+    summary.setTimestamp("20200714144106");
+
+    feedTable.putItem(summary);
+
+    MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+    List<Feed> results = feedController.getFeeds(
+      "1", null, new ServletWebRequest(new MockHttpServletRequest("GET", "/feeds"), firstResponse)
+    );
+
+    assertNotNull(results);
+    assertEquals(1, results.size());
+    String etag = firstResponse.getHeader("ETag");
+    assertNotNull(etag);
+
+    // WHEN
+    MockHttpServletRequest conditionalRequest = new MockHttpServletRequest("GET", "/feeds");
+    conditionalRequest.addHeader("If-None-Match", etag);
+    MockHttpServletResponse conditionalResponse = new MockHttpServletResponse();
+
+    results = feedController.getFeeds("1", null, new ServletWebRequest(conditionalRequest, conditionalResponse));
+
+    // THEN
+    assertNull(results);
+    assertEquals(304, conditionalResponse.getStatus());
+
+    // WHEN the summary has changed since
+    summary.setComponentStatus("FAILED");
+    feedTable.putItem(summary);
+
+    MockHttpServletRequest staleRequest = new MockHttpServletRequest("GET", "/feeds");
+    staleRequest.addHeader("If-None-Match", etag);
+    MockHttpServletResponse staleResponse = new MockHttpServletResponse();
+
+    results = feedController.getFeeds("1", null, new ServletWebRequest(staleRequest, staleResponse));
+
+    // THEN the items are returned with the ETag of their summary
+    assertNotNull(results);
+    assertEquals("FAILED", results.get(0).getComponentStatus());
+    assertEquals(200, staleResponse.getStatus());
+    assertNotNull(staleResponse.getHeader("ETag"));
+    assertNotEquals(etag, staleResponse.getHeader("ETag"));
+  }
+
+  @Test
+  @DisplayName("Test Get Feeds API ETag changes when a backfill adds items under a newer feed summary")
+  void testBackfillUnderNewerSummaryChangesETag(@TempDir Path directory) throws Exception {
+    // GIVEN
+    final DynamoDbTable<Feed> feedTable = dynamoDbEnhancedClient.table(TABLE_NAME, TableSchema.fromBean(Feed.class));
+    Feed summary = new Feed();
+    summary.setPK("1");
+    summary.setSK("F|1");
+    summary.setComponent("TestComponent");
+    summary.setComponentStatus("COMPLETED");
+    summary.setTimestamp("20990101000000");
+
+    feedTable.putItem(summary);
+
+    MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+    feedController.getFeeds("1", null, new ServletWebRequest(new MockHttpServletRequest("GET", "/feeds"), firstResponse));
+    String etag = firstResponse.getHeader("ETag");
+    assertNotNull(etag);
+
+    Path archive = Files.write(
+      directory.resolve("dplogger.log"),
+      "uuid: 1, component: AnotherComponent, status: Started, msg: Entering sync(), timestamp: Tue Jul 14 14:41:06 EDT 2020\n"
+        .getBytes(StandardCharsets.UTF_8)
+    );
+
+    // WHEN
+    feedBackfillService.backfill(Collections.singletonList(archive));
+
+    MockHttpServletRequest conditionalRequest = new MockHttpServletRequest("GET", "/feeds");
+    conditionalRequest.addHeader("If-None-Match", etag);
+    MockHttpServletResponse conditionalResponse = new MockHttpServletResponse();
+
+    List<Feed> results = feedController.getFeeds(
+      "1", null, new ServletWebRequest(conditionalRequest, conditionalResponse)
+    );
+
+    // THEN the newer summary is kept, but the backfilled item is returned under a new ETag
+    assertNotNull(results);
+    assertEquals(2, results.size());
+    Feed storedSummary = feedTable.getItem(summary);
+    assertEquals("20990101000000", storedSummary.getTimestamp());
+    assertEquals(Long.valueOf(1), storedSummary.getVersion());
+    assertEquals(200, conditionalResponse.getStatus());
+    assertNotEquals(etag, conditionalResponse.getHeader("ETag"));
+  }
+
+  @Test
+  @DisplayName("Test Component History API narrows the query by sort key")
+  void testComponentHistoryAPI() {
+    // GIVEN
+    final DynamoDbTable<Feed> feedTable = dynamoDbEnhancedClient.table(TABLE_NAME, TableSchema.fromBean(Feed.class));
+    WriteBatch.Builder<Feed> writeBatch = WriteBatch.builder(Feed.class).mappedTableResource(feedTable);
+
+    Arrays.asList(
+      "F|1",
+      "C|TestComponent|Started|20200714140000",
+      "C|TestComponent|Failed|20200714141000",
+      "C|TestComponent|Failed|20200714142000",
+      "C|TestComponent|Failed|20200715090000",
+      "C|AnotherComponent|Failed|20200714141500"
+    ).forEach(sortKey -> {
+      Feed feed = new Feed();
+      feed.setPK("1");
+      feed.setSK(sortKey);
+      writeBatch.addPutItem(feed);
+    });
+
+    dynamoDbEnhancedClient.batchWriteItem(r -> r.addWriteBatch(writeBatch.build()));
+
+    // WHEN / THEN
+    assertEquals(
+      Arrays.asList(
+        "C|TestComponent|Failed|20200714141000",
+        "C|TestComponent|Failed|20200714142000",
+        "C|TestComponent|Failed|20200715090000",
+        "C|TestComponent|Started|20200714140000"
+      ),
+      feedController.getComponentHistory("1", "TestComponent", null, null, null, null).stream()
+        .map(Feed::getSK)
+        .collect(Collectors.toList())
+    );
+
+    assertEquals(
+      Arrays.asList("C|TestComponent|Failed|20200714141000", "C|TestComponent|Failed|20200714142000"),
+      feedController.getComponentHistory("1", "TestComponent", "Failed", "20200714", "20200714", null).stream()
+        .map(Feed::getSK)
+        .collect(Collectors.toList())
+    );
+
+    assertEquals(
+      Collections.singletonList("C|TestComponent|Failed|20200715090000"),
+      feedController.getComponentHistory("1", "TestComponent", "Failed", null, null, 1).stream()
+        .map(Feed::getSK)
+        .collect(Collectors.toList())
+    );
+  }
+
+  @Test
+  @DisplayName("Test Component History API rejects a range or latest items without a status, and no latest items")
+  void testComponentHistoryAPIRequiresStatus() {
+    ResponseStatusException range = assertThrows(
+      ResponseStatusException.class,
+      () -> feedController.getComponentHistory("1", "TestComponent", null, "20200714", null, null)
+    );
+    assertEquals(HttpStatus.BAD_REQUEST, range.getStatus());
+
+    ResponseStatusException latest = assertThrows(
+      ResponseStatusException.class,
+      () -> feedController.getComponentHistory("1", "TestComponent", null, null, null, 1)
+    );
+    assertEquals(HttpStatus.BAD_REQUEST, latest.getStatus());
+
+    ResponseStatusException noLatest = assertThrows(
+      ResponseStatusException.class,
+      () -> feedController.getComponentHistory("1", "TestComponent", "Started", null, null, 0)
+    );
+    assertEquals(HttpStatus.BAD_REQUEST, noLatest.getStatus());
+
+    ResponseStatusException negativeLatest = assertThrows(
+      ResponseStatusException.class,
+      () -> feedController.getComponentHistory("1", "TestComponent", "Started", null, null, -1)
+    );
+    assertEquals(HttpStatus.BAD_REQUEST, negativeLatest.getStatus());
+  }
+
+  @Test
+  @DisplayName("Test Alert Feeds API rejects a time range with only one bound")
+  void testAlertFeedsAPIRequiresBothBounds() {
+    ResponseStatusException start = assertThrows(
+      ResponseStatusException.class,
+      () -> feedController.getAlertFeeds("20200714", "1400", null)
+    );
+    assertEquals(HttpStatus.BAD_REQUEST, start.getStatus());
+
+    ResponseStatusException end = assertThrows(
+      ResponseStatusException.class,
+      () -> feedController.getAlertFeeds("20200714", null, "1500")
+    );
+    assertEquals(HttpStatus.BAD_REQUEST, end.getStatus());
+  }
 }
@@ -0,0 +1,78 @@
+package com.example.dynamodb.dynamodbspringboot;
+
+import com.example.dynamodb.dynamodbspringboot.model.Feed;
+import com.example.dynamodb.dynamodbspringboot.model.FeedSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serializing a 10k item {@code /feeds/range} response with the bean serializer and with
+ * {@link FeedSerializer}. Run with the test classpath, e.g. from the IDE, and {@code -prof gc} for allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FeedSerializationBenchmark {
+  private static final int ITEMS = 10000;
+
+  private List<Feed> feeds;
+  private ObjectWriter beanWriter;
+  private ObjectWriter feedWriter;
+  private ByteArrayOutputStream out;
+
+  @Setup
+  public void setup() {
+    feeds = new ArrayList<>(ITEMS);
+    for(int i = 0; i < ITEMS; i++) {
+      Feed feed = new Feed();
+      feed.setPK("e55e438e-1703-4331-84e9-" + String.format("%012d", i));
+      feed.setSK("F|" + feed.getPK());
+      feed.setComponent("Eb2bEgressSingleOpChannel");
+      feed.setComponentStatus(i % 10 == 0 ? "Failed" : "Completed");
+      feed.setTimestamp("20200714144106");
+      feed.setFeedDay("20200714");
+      feed.setFeedTime(String.format("%04d", i % 2400));
+      feeds.add(feed);
+    }
+
+    beanWriter = new ObjectMapper().writer();
+    feedWriter = new ObjectMapper()
+      .registerModule(new SimpleModule().addSerializer(new FeedSerializer()))
+      .writer();
+    out = new ByteArrayOutputStream(4 * 1024 * 1024);
+  }
+
+  @Benchmark
+  public int beanSerializer() throws IOException {
+    out.reset();
+    beanWriter.writeValue(out, feeds);
+    return out.size();
+  }
+
+  @Benchmark
+  public int feedSerializer() throws IOException {
+    out.reset();
+    feedWriter.writeValue(out, feeds);
+    return out.size();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+      new OptionsBuilder().include(FeedSerializationBenchmark.class.getSimpleName()).build()
+    ).run();
+  }
+}
@@ -0,0 +1,45 @@
+package com.example.dynamodb.dynamodbspringboot;
+
+import com.example.dynamodb.dynamodbspringboot.model.Feed;
+import com.example.dynamodb.dynamodbspringboot.model.FeedSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class FeedSerializerTest {
+
+  @Test
+  @DisplayName("Check Feed serializer writes the same fields as the bean serializer")
+  void testSerializerMatchesBeanSerializer() throws Exception {
+    Feed summary = new Feed();
+    summary.setPK("e55e438e-1703-4331-84e9-0eb7feb1d2da");
+    summary.setSK("F|e55e438e-1703-4331-84e9-0eb7feb1d2da");
+    summary.setComponent("Eb2bEgressSingleOpChannel");
+    summary.setComponentStatus("Failed");
+    summary.setTimestamp("20200714144106");
+    summary.setFeedDay("20200714");
+    summary.setFeedTime("1441");
+    summary.setAlertDay("20200714");
+    summary.setAlertTime("1441");
+    summary.setVersion(2L);
+
+    Feed component = new Feed();
+    component.setPK("e55e438e-1703-4331-84e9-0eb7feb1d2da");
+    component.setSK("C|Eb2bEgressSingleOpChannel|Failed|20200714144106");
+    component.setMessage("Leaving \"sync()\" - failed results");
+
+    ObjectMapper beanMapper = new ObjectMapper();
+    ObjectMapper feedMapper = new ObjectMapper()
+      .registerModule(new SimpleModule().addSerializer(new FeedSerializer()));
+
+    assertEquals(
+      beanMapper.readTree(beanMapper.writeValueAsString(Arrays.asList(summary, component))),
+      feedMapper.readTree(feedMapper.writeValueAsString(Arrays.asList(summary, component)))
+    );
+  }
+}
@@ -1,5 +1,6 @@
 package com.example.dynamodb.dynamodbspringboot;
 
+import com.example.dynamodb.dynamodbspringboot.controllers.FeedController;
 import com.example.dynamodb.dynamodbspringboot.model.Feed;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
@@ -87,6 +88,9 @@ public class KafkaConsumeToDynamoTableTest {
   @Autowired
   private DynamoDbClient dynamoDbClient;
 
+  @Autowired
+  private FeedController feedController;
+
   @Autowired
   @SuppressWarnings("all")
   private KafkaTemplate<String, String> kafkaTemplate;
@@ -108,13 +112,17 @@ public class KafkaConsumeToDynamoTableTest {
     final TableSchema<Feed> FEED_TABLE_SCHEMA = TableSchema.fromBean(Feed.class);
     final DynamoDbTable<Feed> feedTable = dynamoDbEnhancedClient.table(TABLE_NAME, FEED_TABLE_SCHEMA);
 
-    // Create Feed Table and the GSI explicitly
+    // Create Feed Table and the GSIs explicitly
     feedTable.createTable(
       CreateTableEnhancedRequest.builder()
         .globalSecondaryIndices(
           EnhancedGlobalSecondaryIndex.builder()
             .indexName("DateIdx")
             .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+            .build(),
+          EnhancedGlobalSecondaryIndex.builder()
+            .indexName("AlertIdx")
+            .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
             .build()
         )
         .build()
@@ -216,4 +224,47 @@ public class KafkaConsumeToDynamoTableTest {
       return true;
     });
   }
+
+  @Test
+  @DisplayName("Check only feeds in an alert status are returned by the alert feeds API")
+  public void testFailedFeedsQueryOnAlertIndex() {
+    // WHEN: A failed and a completed message are published in the topic
+    publish(
+      "2020-07-14 14:41:06,950 INFO  DPLogger - uuid: f15e438e-1703-4331-84e9-0eb7feb1f2da, component: Eb2bEgressSingleOpChannel, status: Failed, msg: Leaving Eb2bEgressSingleOpChannel sync() - failed, timestamp: Tue Jul 14 14:41:06 EDT 2020"
+    );
+    publish(
+      "2020-07-14 14:41:07,950 INFO  DPLogger - uuid: c25e438e-1703-4331-84e9-0eb7feb1f2da, component: Eb2bEgressSingleOpChannel, status: Completed, msg: Leaving Eb2bEgressSingleOpChannel sync() - completed, timestamp: Tue Jul 14 14:41:07 EDT 2020"
+    );
+
+    // THEN: Only the failed feed summary is returned from the alert index
+    Unreliables.retryUntilTrue(30, TimeUnit.SECONDS, () -> {
+      final DynamoDbTable<Feed> feedTable = dynamoDbEnhancedClient.table(TABLE_NAME, TableSchema.fromBean(Feed.class));
+      String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+
+      List<Feed> feedsByDate = feedTable.index("DateIdx")
+        .query(r -> r.queryConditional(keyEqualTo(k -> k.partitionValue(today))))
+        .stream()
+        .flatMap(feedPage -> feedPage.items().stream())
+        .collect(Collectors.toList());
+
+      // Wait until both summaries are written before checking the alert index
+      if(feedsByDate.size() < 2) {
+        return false;
+      }
+
+      List<Feed> alerts = feedController.getAlertFeeds(today, null, null);
+
+      assertThat(alerts)
+        .extracting(Feed::getPK, Feed::getComponentStatus)
+        .containsExactly(tuple("f15e438e-1703-4331-84e9-0eb7feb1f2da", "Failed"));
+
+      // A time range narrows the day by the alert time
+      String alertTime = alerts.get(0).getAlertTime();
+      assertThat(feedController.getAlertFeeds(today, alertTime, alertTime))
+        .extracting(Feed::getPK)
+        .containsExactly("f15e438e-1703-4331-84e9-0eb7feb1f2da");
+
+      return true;
+    });
+  }
 }
@@ -7,6 +7,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 
 import static org.junit.Assert.*;
@@ -31,4 +34,22 @@ public class StringTokenizerTest {
     assertEquals("Test Log Message", feed.getMessage());
     assertEquals("InProgress", feed.getComponentStatus());
   }
+
+  @Test
+  @DisplayName("Check component sort key uses the event timestamp of the message")
+  void testSortKeyUsesEventTimestamp() {
+    String message = "2020-07-14 14:41:06,950 INFO  DPLogger - uuid: e55e438e-1703-4331-84e9-0eb7feb1d2da, component: TestComponent, status: Failed, msg: Test Log Message, timestamp: Tue Jul 14 14:41:06 EDT 2020";
+
+    Feed first = feedService.tokenizeMessageToFeed(message).orElse(null);
+    Feed redelivered = feedService.tokenizeMessageToFeed(message).orElse(null);
+
+    String expectedTimestamp = ZonedDateTime.of(2020, 7, 14, 14, 41, 6, 0, ZoneId.of("America/New_York"))
+      .withZoneSameInstant(ZoneId.systemDefault())
+      .format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+
+    assertNotNull(first);
+    assertEquals(expectedTimestamp, first.getTimestamp());
+    assertEquals("C|TestComponent|Failed|" + expectedTimestamp, first.getSK());
+    assertEquals(first.getSK(), redelivered.getSK());
+  }
 }
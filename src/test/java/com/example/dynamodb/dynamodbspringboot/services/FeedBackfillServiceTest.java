@@ -0,0 +1,95 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.model.Feed;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class FeedBackfillServiceTest {
+  @TempDir
+  Path directory;
+
+  private Path file(String content) throws Exception {
+    return Files.write(directory.resolve("dplogger.log"), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<String> chunks(List<long[]> chunks) {
+    return chunks.stream().map(chunk -> chunk[0] + "-" + chunk[1]).collect(Collectors.toList());
+  }
+
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+
+  private static FeedBackfillService.SummaryCandidate candidate(int fileIndex, long lineOffset, String timestamp) {
+    Feed summary = new Feed();
+    summary.setTimestamp(timestamp);
+    return new FeedBackfillService.SummaryCandidate(fileIndex, lineOffset, summary);
+  }
+
+  @Test
+  @DisplayName("Check the summary of the latest event is kept even if it comes from an earlier file")
+  void testSummaryCandidateOrderedByTimestamp() {
+    assertTrue(candidate(0, 0, "20200714144106").isAfter(candidate(1, 0, "20200714144105")));
+    assertFalse(candidate(1, 0, "20200714144105").isAfter(candidate(0, 0, "20200714144106")));
+  }
+
+  @Test
+  @DisplayName("Check summaries of events of the same second are ordered by file, then by line")
+  void testSummaryCandidateTiesOrderedByPosition() {
+    assertTrue(candidate(1, 0, "20200714144106").isAfter(candidate(0, 100, "20200714144106")));
+    assertTrue(candidate(0, 100, "20200714144106").isAfter(candidate(0, 0, "20200714144106")));
+    assertFalse(candidate(0, 0, "20200714144106").isAfter(candidate(0, 100, "20200714144106")));
+  }
+
+  @Test
+  @DisplayName("Check a chunk ending exactly on a line break is not extended")
+  void testLineBreakOnChunkEdge() throws Exception {
+    Path file = file("abc\ndef\n");
+
+    assertEquals(Arrays.asList("0-4", "4-8"), chunks(FeedBackfillService.lineAlignedChunks(file, 4)));
+  }
+
+  @Test
+  @DisplayName("Check a chunk is extended past a line longer than the line break probe")
+  void testLineLongerThanProbe() throws Exception {
+    Path file = file(repeat('a', 20000) + "\nb\n");
+
+    assertEquals(Arrays.asList("0-20001", "20001-20003"), chunks(FeedBackfillService.lineAlignedChunks(file, 10)));
+  }
+
+  @Test
+  @DisplayName("Check the last chunk ends with the file when it has no trailing line break")
+  void testNoTrailingLineBreak() throws Exception {
+    Path file = file("abc\ndef");
+
+    assertEquals(Arrays.asList("0-4", "4-7"), chunks(FeedBackfillService.lineAlignedChunks(file, 2)));
+  }
+
+  @Test
+  @DisplayName("Check a chunk ending inside a CRLF line break is extended past the line feed")
+  void testCrlfLineBreaks() throws Exception {
+    Path file = file("ab\r\ncd\r\n");
+
+    assertEquals(Arrays.asList("0-4", "4-8"), chunks(FeedBackfillService.lineAlignedChunks(file, 3)));
+  }
+
+  @Test
+  @DisplayName("Check an empty file has no chunks")
+  void testEmptyFile() throws Exception {
+    Path file = file("");
+
+    assertTrue(FeedBackfillService.lineAlignedChunks(file, 4).isEmpty());
+  }
+}
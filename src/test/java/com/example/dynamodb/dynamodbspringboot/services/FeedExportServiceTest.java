@@ -0,0 +1,218 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FeedExportServiceTest {
+  private static final String DATA_FILE = "FeedMgmt-0-of-1.ndjson";
+  private static final String CHECKPOINT_FILE = "FeedMgmt-0-of-1.checkpoint";
+
+  @TempDir
+  Path directory;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private FeedProperties feedProperties;
+
+  @BeforeEach
+  void setup() {
+    feedProperties = new FeedProperties();
+    feedProperties.getExport().setDirectory(directory);
+    feedProperties.getExport().setSegments(1);
+  }
+
+  private static Map<String, AttributeValue> item(String pk) {
+    Map<String, AttributeValue> item = new LinkedHashMap<>();
+    item.put("PK", AttributeValue.builder().s(pk).build());
+    item.put("SK", AttributeValue.builder().s("F|" + pk).build());
+    return item;
+  }
+
+  private static Map<String, AttributeValue> key(String pk) {
+    Map<String, AttributeValue> key = new HashMap<>();
+    key.put("PK", AttributeValue.builder().s(pk).build());
+    key.put("SK", AttributeValue.builder().s("F|" + pk).build());
+    return key;
+  }
+
+  private List<JsonNode> exportedLines() throws Exception {
+    List<JsonNode> lines = new ArrayList<>();
+    for(String line : Files.readAllLines(directory.resolve(DATA_FILE), StandardCharsets.UTF_8)) {
+      lines.add(objectMapper.readTree(line));
+    }
+    return lines;
+  }
+
+  private List<JsonNode> json(String... lines) throws Exception {
+    List<JsonNode> nodes = new ArrayList<>();
+    for(String line : lines) {
+      nodes.add(objectMapper.readTree(line));
+    }
+    return nodes;
+  }
+
+  private FeedExportService.Checkpoint checkpoint() throws Exception {
+    return objectMapper.readValue(directory.resolve(CHECKPOINT_FILE).toFile(), FeedExportService.Checkpoint.class);
+  }
+
+  @Test
+  @DisplayName("Check an interrupted export resumes from its checkpoint and drops bytes written after it")
+  void testExportResumesFromCheckpoint() throws Exception {
+    ScriptedClient failingClient = new ScriptedClient(
+      request -> ScanResponse.builder().items(item("1"), item("2")).lastEvaluatedKey(key("2")).build(),
+      request -> {
+        throw DynamoDbException.builder().message("Connection reset").build();
+      }
+    );
+
+    FeedExportService export = new FeedExportService(failingClient, objectMapper, feedProperties);
+    assertThrows(ExecutionException.class, export::exportTable);
+
+    FeedExportService.Checkpoint checkpoint = checkpoint();
+    assertFalse(checkpoint.complete);
+    assertEquals("2", checkpoint.lastEvaluatedKey.get("PK"));
+    assertEquals(Files.size(directory.resolve(DATA_FILE)), checkpoint.position);
+
+    // A page written after the last checkpoint that never made it into one
+    Files.write(directory.resolve(DATA_FILE), "{\"PK\":\"partial".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    ScriptedClient resumingClient = new ScriptedClient(request -> {
+      assertEquals(key("2"), request.exclusiveStartKey());
+      return ScanResponse.builder().items(item("3")).build();
+    });
+
+    assertEquals(1, new FeedExportService(resumingClient, objectMapper, feedProperties).exportTable());
+    assertEquals(
+      json(
+        "{\"PK\":\"1\",\"SK\":\"F|1\"}",
+        "{\"PK\":\"2\",\"SK\":\"F|2\"}",
+        "{\"PK\":\"3\",\"SK\":\"F|3\"}"
+      ),
+      exportedLines()
+    );
+    assertTrue(checkpoint().complete);
+
+  }
+
+  @Test
+  @DisplayName("Check an export run after a complete one starts afresh")
+  void testCompleteExportIsReplaced() throws Exception {
+    ScriptedClient firstClient = new ScriptedClient(request -> ScanResponse.builder().items(item("1"), item("2")).build());
+    assertEquals(2, new FeedExportService(firstClient, objectMapper, feedProperties).exportTable());
+    assertTrue(checkpoint().complete);
+
+    ScriptedClient secondClient = new ScriptedClient(request -> {
+      assertTrue(request.exclusiveStartKey().isEmpty());
+      return ScanResponse.builder().items(item("3")).build();
+    });
+
+    assertEquals(1, new FeedExportService(secondClient, objectMapper, feedProperties).exportTable());
+    assertEquals(1, secondClient.scans);
+    assertEquals(json("{\"PK\":\"3\",\"SK\":\"F|3\"}"), exportedLines());
+    assertTrue(checkpoint().complete);
+  }
+
+  @Test
+  @DisplayName("Check attributes that are not strings are exported with their values")
+  void testExportWritesEveryAttributeType() throws Exception {
+    Map<String, AttributeValue> item = item("1");
+    item.put("COUNT", AttributeValue.builder().n("42").build());
+    item.put("ACTIVE", AttributeValue.builder().bool(true).build());
+    item.put("REMOVED", AttributeValue.builder().nul(true).build());
+    item.put("TAGS", AttributeValue.builder().ss("a", "b").build());
+    item.put("PAYLOAD", AttributeValue.builder().b(SdkBytes.fromUtf8String("hi")).build());
+    item.put("STEPS", AttributeValue.builder().l(
+      AttributeValue.builder().s("Ingest").build(),
+      AttributeValue.builder().m(Collections.singletonMap("n", AttributeValue.builder().n("1.5").build())).build()
+    ).build());
+
+    ScriptedClient client = new ScriptedClient(request -> ScanResponse.builder().items(item).build());
+    new FeedExportService(client, objectMapper, feedProperties).exportTable();
+
+    assertEquals(
+      json(
+        "{\"PK\":\"1\",\"SK\":\"F|1\",\"COUNT\":42,\"ACTIVE\":true,\"REMOVED\":null,\"TAGS\":[\"a\",\"b\"],"
+          + "\"PAYLOAD\":\"aGk=\",\"STEPS\":[\"Ingest\",{\"n\":1.5}]}"
+      ),
+      exportedLines()
+    );
+  }
+
+  @Test
+  @DisplayName("Check the status reports a failed background export")
+  void testStatusReportsFailedExport() throws Exception {
+    ScriptedClient client = new ScriptedClient(request -> {
+      throw DynamoDbException.builder().message("Table is being deleted").build();
+    });
+    FeedExportService export = new FeedExportService(client, objectMapper, feedProperties);
+
+    assertEquals(FeedExportService.ExportState.IDLE, export.getStatus().get("state"));
+    assertTrue(export.startExport());
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while(export.isRunning() && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+
+    assertFalse(export.isRunning());
+    assertEquals(FeedExportService.ExportState.FAILED, export.getStatus().get("state"));
+    assertTrue(String.valueOf(export.getStatus().get("error")).contains("Table is being deleted"));
+  }
+
+  /**
+   * Answers scans with the given pages in order, failing the test if more pages are requested.
+   */
+  private static final class ScriptedClient implements DynamoDbClient {
+    private final Deque<Function<ScanRequest, ScanResponse>> pages;
+    private int scans;
+
+    @SafeVarargs
+    private ScriptedClient(final Function<ScanRequest, ScanResponse>... pages) {
+      this.pages = new ArrayDeque<>(Arrays.asList(pages));
+    }
+
+    @Override
+    public DescribeTableResponse describeTable(final DescribeTableRequest request) {
+      return DescribeTableResponse.builder()
+        .table(t -> t.provisionedThroughput(p -> p.readCapacityUnits(1000L)))
+        .build();
+    }
+
+    @Override
+    public synchronized ScanResponse scan(final ScanRequest request) {
+      scans++;
+      if(pages.isEmpty()) {
+        throw new AssertionError("Unexpected scan " + request);
+      }
+      return pages.poll().apply(request);
+    }
+
+    @Override
+    public String serviceName() {
+      return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
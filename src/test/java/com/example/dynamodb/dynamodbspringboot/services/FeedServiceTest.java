@@ -0,0 +1,134 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import com.example.dynamodb.dynamodbspringboot.model.Feed;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FeedServiceTest {
+  private static final String MESSAGE = "2020-07-14 14:41:06,950 INFO  DPLogger - uuid: e55e438e-1703-4331-84e9-0eb7feb1d2da, component: Eb2bEgressSingleOpChannel, status: Failed, msg: Leaving Eb2bEgressSingleOpChannel sync() - failed, timestamp: Tue Jul 14 14:41:06 EDT 2020";
+
+  private BatchWriteClient dynamoDbClient;
+  private FeedService feedService;
+
+  @BeforeEach
+  void setup() {
+    FeedProperties feedProperties = new FeedProperties();
+    dynamoDbClient = new BatchWriteClient();
+
+    feedService = new FeedService(
+      DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build(),
+      dynamoDbClient,
+      new RecentFeedWindow(feedProperties),
+      new HedgedReads(feedProperties),
+      new RecentMessageFilter(feedProperties),
+      feedProperties
+    );
+  }
+
+  private static Feed component(String timestamp, String status) {
+    Feed feed = new Feed();
+    feed.setPK("e55e438e-1703-4331-84e9-0eb7feb1d2da");
+    feed.setComponent("Eb2bEgressSingleOpChannel");
+    feed.setComponentStatus(status);
+    feed.setTimestamp(timestamp);
+    feed.setSK("C|Eb2bEgressSingleOpChannel|" + status + "|" + timestamp);
+    return feed;
+  }
+
+  @Test
+  @DisplayName("Check a backfilled summary is dated with the event time of its component")
+  void testEventSummaryUsesEventTime() {
+    Feed summary = feedService.eventSummaryOf(component("20200714144106", "Failed"));
+
+    assertEquals("F|e55e438e-1703-4331-84e9-0eb7feb1d2da", summary.getSK());
+    assertEquals("20200714", summary.getFeedDay());
+    assertEquals("1441", summary.getFeedTime());
+    assertEquals("20200714", summary.getAlertDay());
+    assertEquals("1441", summary.getAlertTime());
+    assertEquals("20200714144106", summary.getTimestamp());
+  }
+
+  @Test
+  @DisplayName("Check a backfilled summary without a parsable event time is dated with the current time")
+  void testEventSummaryFallsBackToCurrentTime() {
+    Feed summary = feedService.eventSummaryOf(component("not-a-timestamp", "Completed"));
+
+    assertEquals(feedService.summaryOf(component("not-a-timestamp", "Completed")).getFeedDay(), summary.getFeedDay());
+    assertNull(summary.getAlertDay());
+  }
+
+  @Test
+  @DisplayName("Check a redelivered message is not written again")
+  void testRedeliveredMessageIsSkipped() {
+    assertTrue(feedService.createFeedItem(MESSAGE));
+    assertTrue(feedService.createFeedItem(MESSAGE));
+
+    assertEquals(1, dynamoDbClient.batchWrites);
+  }
+
+  @Test
+  @DisplayName("Check a message whose items were left unprocessed is written again")
+  void testUnprocessedMessageIsNotRemembered() {
+    dynamoDbClient.leaveUnprocessed = true;
+    assertFalse(feedService.createFeedItem(MESSAGE));
+
+    dynamoDbClient.leaveUnprocessed = false;
+    assertTrue(feedService.createFeedItem(MESSAGE));
+    assertTrue(feedService.createFeedItem(MESSAGE));
+
+    assertEquals(2, dynamoDbClient.batchWrites);
+  }
+
+  @Test
+  @DisplayName("Check a message whose write failed is written again")
+  void testFailedMessageIsNotRemembered() {
+    dynamoDbClient.fail = true;
+    assertThrows(DynamoDbException.class, () -> feedService.createFeedItem(MESSAGE));
+
+    dynamoDbClient.fail = false;
+    assertTrue(feedService.createFeedItem(MESSAGE));
+
+    assertEquals(2, dynamoDbClient.batchWrites);
+  }
+
+  /**
+   * Counts batch writes, optionally failing them or leaving every item unprocessed.
+   */
+  private static final class BatchWriteClient implements DynamoDbClient {
+    private int batchWrites;
+    private boolean leaveUnprocessed;
+    private boolean fail;
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(final BatchWriteItemRequest request) {
+      batchWrites++;
+
+      if(fail) {
+        throw DynamoDbException.builder().message("Internal server error").build();
+      }
+
+      return leaveUnprocessed
+        ? BatchWriteItemResponse.builder().unprocessedItems(request.requestItems()).build()
+        : BatchWriteItemResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+      return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
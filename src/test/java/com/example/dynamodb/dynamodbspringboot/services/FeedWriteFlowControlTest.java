@@ -0,0 +1,179 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class FeedWriteFlowControlTest {
+  private static final String TOPIC = "feeds";
+  private static final int MAX_POLL_RECORDS = 2;
+
+  private FeedService feedService;
+  private MessageListenerContainer container;
+  private KafkaListenerEndpointRegistry registry;
+  private FeedProperties feedProperties;
+  private FeedWriteFlowControl flowControl;
+
+  @BeforeEach
+  void setup() {
+    feedService = mock(FeedService.class);
+    container = mock(MessageListenerContainer.class);
+    registry = mock(KafkaListenerEndpointRegistry.class);
+    when(registry.getListenerContainer(FeedConsumer.LISTENER_ID)).thenReturn(container);
+
+    feedProperties = new FeedProperties();
+    feedProperties.getFlowControl().setQueueCapacity(4);
+    feedProperties.getFlowControl().setHighWatermark(2);
+    feedProperties.getFlowControl().setLowWatermark(0);
+    feedProperties.getFlowControl().setMinBackoffMillis(10);
+  }
+
+  @AfterEach
+  void teardown() {
+    if(flowControl != null) {
+      flowControl.stop();
+    }
+  }
+
+  private FeedWriteFlowControl flowControl() {
+    flowControl = new FeedWriteFlowControl(feedService, registry, feedProperties, MAX_POLL_RECORDS);
+    return flowControl;
+  }
+
+  private static ConsumerRecord<String, String> record(int partition, long offset) {
+    return new ConsumerRecord<>(TOPIC, partition, offset, null, "message-" + partition + "-" + offset);
+  }
+
+  @Test
+  @DisplayName("Check a queue without room for a poll above the high watermark is rejected at startup")
+  void testQueueCapacityIsValidated() {
+    feedProperties.getFlowControl().setQueueCapacity(3);
+
+    assertThrows(IllegalStateException.class, this::flowControl);
+  }
+
+  @Test
+  @DisplayName("Check the listener is paused at the high watermark and overflowing records are nacked, not blocked on")
+  void testSubmitNeverBlocks() {
+    // The writer is not started, so nothing drains the queue
+    FeedWriteFlowControl flowControl = flowControl();
+    Acknowledgment[] acknowledgments = new Acknowledgment[6];
+
+    for(int offset = 0; offset < acknowledgments.length; offset++) {
+      acknowledgments[offset] = mock(Acknowledgment.class);
+      flowControl.submit(record(0, offset), acknowledgments[offset]);
+      when(container.isPauseRequested()).thenReturn(offset + 1 >= 2);
+    }
+
+    verify(container, times(1)).pause();
+    assertEquals(Long.valueOf(4), flowControl.getStats().get("queued"));
+    assertEquals(Long.valueOf(2), flowControl.getStats().get("overflows"));
+
+    for(int offset = 0; offset < 4; offset++) {
+      verify(acknowledgments[offset], never()).nack(anyLong());
+    }
+    verify(acknowledgments[4]).nack(10);
+    verify(acknowledgments[5]).nack(10);
+  }
+
+  @Test
+  @DisplayName("Check queued records of revoked partitions are neither written nor acknowledged")
+  void testRevokedPartitionsAreDropped() {
+    when(feedService.createFeedItem(anyString())).thenReturn(true);
+    FeedWriteFlowControl flowControl = flowControl();
+
+    Acknowledgment revoked = mock(Acknowledgment.class);
+    Acknowledgment kept = mock(Acknowledgment.class);
+    flowControl.submit(record(0, 0), revoked);
+    flowControl.submit(record(1, 0), kept);
+
+    flowControl.onPartitionsRevokedBeforeCommit(
+      mock(Consumer.class), Collections.singletonList(new TopicPartition(TOPIC, 0))
+    );
+    assertEquals(Long.valueOf(1), flowControl.getStats().get("revoked"));
+
+    flowControl.start();
+
+    verify(kept, timeout(5000)).acknowledge();
+    verify(feedService).createFeedItem("message-1-0");
+    verify(feedService, never()).createFeedItem("message-0-0");
+    verify(revoked, never()).acknowledge();
+  }
+
+  @Test
+  @DisplayName("Check a write failing with a server error is retried and then acknowledged")
+  void testServerErrorIsRetried() {
+    when(feedService.createFeedItem(anyString()))
+      .thenThrow(DynamoDbException.builder().statusCode(500).message("Internal server error").build())
+      .thenReturn(true);
+    FeedWriteFlowControl flowControl = flowControl();
+
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    flowControl.submit(record(0, 0), acknowledgment);
+    flowControl.start();
+
+    verify(acknowledgment, timeout(5000)).acknowledge();
+    verify(feedService, times(2)).createFeedItem("message-0-0");
+  }
+
+  @Test
+  @DisplayName("Check a write rejected as invalid is acknowledged without retrying it")
+  void testValidationErrorIsDropped() {
+    when(feedService.createFeedItem(anyString()))
+      .thenThrow(DynamoDbException.builder().statusCode(400).message("One or more parameter values were invalid").build());
+    FeedWriteFlowControl flowControl = flowControl();
+
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    flowControl.submit(record(0, 0), acknowledgment);
+    flowControl.start();
+
+    verify(acknowledgment, timeout(5000)).acknowledge();
+    verify(feedService, times(1)).createFeedItem("message-0-0");
+  }
+
+  @Test
+  @DisplayName("Check a record being retried when its partition is revoked is given up without acknowledging it")
+  void testInFlightWriteOfRevokedPartitionIsNotAcknowledged() throws Exception {
+    // Unprocessed items keep the writer retrying the record until the write is allowed to succeed
+    AtomicBoolean processed = new AtomicBoolean();
+    when(feedService.createFeedItem(anyString())).thenAnswer(invocation -> processed.get());
+    feedProperties.getFlowControl().setMaxBackoffMillis(50);
+    FeedWriteFlowControl flowControl = flowControl();
+
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    flowControl.submit(record(0, 0), acknowledgment);
+    flowControl.start();
+
+    verify(feedService, timeout(5000).atLeastOnce()).createFeedItem("message-0-0");
+    flowControl.onPartitionsRevokedBeforeCommit(
+      mock(Consumer.class), Collections.singletonList(new TopicPartition(TOPIC, 0))
+    );
+    processed.set(true);
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while(flowControl.getStats().get("inFlight") > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertEquals(Long.valueOf(0), flowControl.getStats().get("inFlight"));
+    verify(acknowledgment, never()).acknowledge();
+  }
+}
@@ -0,0 +1,159 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HedgedReadsTest {
+  private final CountDownLatch release = new CountDownLatch(1);
+  private HedgedReads hedgedReads;
+
+  @AfterEach
+  void teardown() {
+    release.countDown();
+    if(hedgedReads != null) {
+      hedgedReads.shutdown();
+    }
+  }
+
+  private HedgedReads hedgedReads(long delayMillis, double maxHedgeRatio, int threads) {
+    FeedProperties feedProperties = new FeedProperties();
+    feedProperties.getHedging().setEnabled(true);
+    feedProperties.getHedging().setDelayMillis(delayMillis);
+    feedProperties.getHedging().setMaxHedgeRatio(maxHedgeRatio);
+    feedProperties.getHedging().setThreads(threads);
+    hedgedReads = new HedgedReads(feedProperties);
+    return hedgedReads;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void awaitRelease() {
+    try {
+      release.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  @DisplayName("Check a read slower than the hedge delay is hedged and the hedge answers")
+  void testSlowReadIsHedged() {
+    HedgedReads reads = hedgedReads(20, 1, 4);
+    AtomicInteger attempts = new AtomicInteger();
+
+    String result = reads.execute(() -> {
+      if(attempts.incrementAndGet() == 1) {
+        awaitRelease();
+        return "primary";
+      }
+      return "hedge";
+    });
+
+    assertEquals("hedge", result);
+    assertEquals(2, attempts.get());
+    assertEquals(Long.valueOf(1), reads.getStats().get("hedgesIssued"));
+    assertEquals(Long.valueOf(1), reads.getStats().get("hedgesWon"));
+  }
+
+  @Test
+  @DisplayName("Check a read faster than the hedge delay is not hedged")
+  void testFastReadIsNotHedged() {
+    HedgedReads reads = hedgedReads(1000, 1, 4);
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertEquals("primary", reads.execute(() -> {
+      attempts.incrementAndGet();
+      return "primary";
+    }));
+
+    assertEquals(1, attempts.get());
+    assertEquals(Long.valueOf(0), reads.getStats().get("hedgesIssued"));
+  }
+
+  @Test
+  @DisplayName("Check hedges are limited to the hedge ratio of the reads")
+  void testHedgesAreLimitedByCredits() {
+    HedgedReads reads = hedgedReads(10, 0.5, 4);
+
+    for(int i = 0; i < 4; i++) {
+      reads.execute(() -> {
+        sleep(100);
+        return "slow";
+      });
+    }
+
+    assertEquals(Long.valueOf(4), reads.getStats().get("reads"));
+    assertEquals(Long.valueOf(2), reads.getStats().get("hedgesIssued"));
+  }
+
+  @Test
+  @DisplayName("Check the read succeeds when the primary fails but the hedge succeeds")
+  void testFirstSuccessWins() {
+    HedgedReads reads = hedgedReads(20, 1, 4);
+    AtomicInteger attempts = new AtomicInteger();
+
+    String result = reads.execute(() -> {
+      if(attempts.incrementAndGet() == 1) {
+        sleep(100);
+        throw new IllegalStateException("Primary failed");
+      }
+      sleep(200);
+      return "hedge";
+    });
+
+    assertEquals("hedge", result);
+    assertEquals(Long.valueOf(1), reads.getStats().get("hedgesWon"));
+  }
+
+  @Test
+  @DisplayName("Check the read fails only once the primary and the hedge have both failed")
+  void testFailsWhenEveryAttemptFails() {
+    HedgedReads reads = hedgedReads(20, 1, 4);
+    AtomicInteger attempts = new AtomicInteger();
+
+    IllegalStateException failure = assertThrows(IllegalStateException.class, () -> reads.execute(() -> {
+      if(attempts.incrementAndGet() == 1) {
+        sleep(100);
+        throw new IllegalStateException("Primary failed");
+      }
+      sleep(200);
+      throw new IllegalStateException("Hedge failed");
+    }));
+
+    assertEquals("Hedge failed", failure.getMessage());
+    assertEquals(2, attempts.get());
+  }
+
+  @Test
+  @DisplayName("Check no hedge is sent while every thread is busy")
+  void testHedgeIsSkippedWhenPoolIsBusy() {
+    HedgedReads reads = hedgedReads(20, 1, 1);
+    AtomicInteger attempts = new AtomicInteger();
+
+    String result = reads.execute(() -> {
+      attempts.incrementAndGet();
+      sleep(200);
+      return "primary";
+    });
+
+    assertEquals("primary", result);
+    assertEquals(1, attempts.get());
+    assertEquals(Long.valueOf(0), reads.getStats().get("hedgesIssued"));
+    assertEquals(Long.valueOf(1), reads.getStats().get("rejected"));
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import java.time.*;
+
+/**
+ * Clock that only moves when a test moves it.
+ */
+class MutableClock extends Clock {
+  private Instant instant;
+  private final ZoneId zone;
+
+  MutableClock(final LocalDateTime dateTime) {
+    this.zone = ZoneOffset.UTC;
+    this.instant = dateTime.toInstant(ZoneOffset.UTC);
+  }
+
+  void set(final LocalDateTime dateTime) {
+    instant = dateTime.toInstant(ZoneOffset.UTC);
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Instant instant() {
+    return instant;
+  }
+}
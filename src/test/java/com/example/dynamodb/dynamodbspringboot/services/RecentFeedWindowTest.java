@@ -0,0 +1,130 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import com.example.dynamodb.dynamodbspringboot.configurations.FeedProperties;
+import com.example.dynamodb.dynamodbspringboot.model.Feed;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class RecentFeedWindowTest {
+  private static final String DAY = "20200714";
+  private static final LocalDateTime STARTED_AT = LocalDateTime.of(2020, 7, 14, 10, 0, 30);
+
+  private MutableClock clock;
+
+  @BeforeEach
+  void setup() {
+    clock = new MutableClock(STARTED_AT);
+  }
+
+  private RecentFeedWindow window(boolean enabled, int minutes, int maxItemsPerBucket) {
+    FeedProperties feedProperties = new FeedProperties();
+    feedProperties.getRecentWindow().setEnabled(enabled);
+    feedProperties.getRecentWindow().setMinutes(minutes);
+    feedProperties.getRecentWindow().setMaxItemsPerBucket(maxItemsPerBucket);
+    return new RecentFeedWindow(feedProperties, clock);
+  }
+
+  private static Feed summary(String pk, String feedTime) {
+    Feed feed = new Feed();
+    feed.setPK(pk);
+    feed.setSK("F|" + pk);
+    feed.setFeedDay(DAY);
+    feed.setFeedTime(feedTime);
+    return feed;
+  }
+
+  private static List<String> pks(Optional<List<Feed>> feeds) {
+    return feeds.orElseThrow(AssertionError::new).stream().map(Feed::getPK).collect(Collectors.toList());
+  }
+
+  @Test
+  @DisplayName("Check disabled window never answers range queries")
+  void testDisabledWindowFallsBack() {
+    RecentFeedWindow window = window(false, 60, 10);
+    clock.set(STARTED_AT.plusMinutes(5));
+    window.record(summary("1", "1003"));
+
+    assertFalse(window.find(DAY, "0000", "2359").isPresent());
+  }
+
+  @Test
+  @DisplayName("Check ranges starting before the first fully observed minute fall back to the index")
+  void testRangeBeforeCoverageFallsBack() {
+    RecentFeedWindow window = window(true, 60, 10);
+    clock.set(STARTED_AT.plusMinutes(5));
+    window.record(summary("1", "1003"));
+
+    // The start minute itself is only partially observed
+    assertFalse(window.find(DAY, "1000", "1005").isPresent());
+    assertFalse(window.find(DAY, "0900", "1005").isPresent());
+  }
+
+  @Test
+  @DisplayName("Check covered ranges are answered from the window in minute order")
+  void testCoveredRangeIsServed() {
+    RecentFeedWindow window = window(true, 60, 10);
+    clock.set(STARTED_AT.plusMinutes(5));
+    window.record(summary("2", "1004"));
+    window.record(summary("1", "1003"));
+    window.record(summary("3", "1005"));
+
+    assertEquals(Arrays.asList("1", "2", "3"), pks(window.find(DAY, "1001", "1005")));
+    assertEquals(Collections.singletonList("2"), pks(window.find(DAY, "1004", "1004")));
+    // Minutes after now hold nothing yet
+    assertEquals(Collections.singletonList("3"), pks(window.find(DAY, "1005", "1030")));
+  }
+
+  @Test
+  @DisplayName("Check a summary moves to the bucket of its latest write")
+  void testSummaryMovesBetweenBuckets() {
+    RecentFeedWindow window = window(true, 60, 10);
+    clock.set(STARTED_AT.plusMinutes(5));
+    window.record(summary("1", "1003"));
+    window.record(summary("1", "1004"));
+
+    assertEquals(Collections.emptyList(), pks(window.find(DAY, "1003", "1003")));
+    assertEquals(Collections.singletonList("1"), pks(window.find(DAY, "1001", "1005")));
+  }
+
+  @Test
+  @DisplayName("Check a bucket is recycled once its minute leaves the window")
+  void testBucketIsRecycled() {
+    RecentFeedWindow window = window(true, 5, 10);
+    clock.set(STARTED_AT.plusMinutes(2));
+    window.record(summary("1", "1002"));
+
+    // 1007 uses the same slot as 1002 in a five minute ring
+    clock.set(STARTED_AT.plusMinutes(7));
+    window.record(summary("2", "1007"));
+
+    assertFalse(window.find(DAY, "1002", "1007").isPresent());
+    assertEquals(Collections.singletonList("2"), pks(window.find(DAY, "1003", "1007")));
+
+    // A summary that fell out of the window can be recorded again
+    window.record(summary("1", "1007"));
+    assertEquals(Arrays.asList("2", "1"), pks(window.find(DAY, "1007", "1007")));
+  }
+
+  @Test
+  @DisplayName("Check an overflowing bucket makes the window fall back to the index")
+  void testOverflowingBucketFallsBack() {
+    RecentFeedWindow window = window(true, 60, 1);
+    clock.set(STARTED_AT.plusMinutes(5));
+    window.record(summary("1", "1003"));
+    window.record(summary("2", "1003"));
+    window.record(summary("3", "1004"));
+
+    assertFalse(window.find(DAY, "1003", "1004").isPresent());
+    assertEquals(Collections.singletonList("3"), pks(window.find(DAY, "1004", "1004")));
+  }
+}
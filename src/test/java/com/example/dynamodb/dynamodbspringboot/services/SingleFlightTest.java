@@ -0,0 +1,137 @@
+package com.example.dynamodb.dynamodbspringboot.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+  private static final int CALLERS = 8;
+
+  private ExecutorService callers;
+
+  @BeforeEach
+  void setup() {
+    callers = Executors.newFixedThreadPool(CALLERS);
+  }
+
+  @AfterEach
+  void teardown() {
+    callers.shutdownNow();
+  }
+
+  /**
+   * Starts every caller while the leader's load is blocked, and waits until all of them are coalesced.
+   */
+  private List<Future<String>> callConcurrently(
+    SingleFlight<String, String> singleFlight,
+    CountDownLatch release,
+    AtomicInteger loads,
+    RuntimeException failure
+  ) throws InterruptedException {
+    CountDownLatch loading = new CountDownLatch(1);
+    List<Future<String>> results = new ArrayList<>();
+
+    results.add(callers.submit(() -> singleFlight.execute("feed", () -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      awaitUninterruptibly(release);
+      if(failure != null) {
+        throw failure;
+      }
+      return "loaded";
+    })));
+    assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+    for(int i = 1; i < CALLERS; i++) {
+      results.add(callers.submit(() -> singleFlight.execute("feed", () -> {
+        loads.incrementAndGet();
+        return "not coalesced";
+      })));
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while(singleFlight.getCoalesced() < CALLERS - 1 && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(5);
+    }
+
+    return results;
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  @DisplayName("Check concurrent callers for the same key share a single load")
+  void testConcurrentCallersShareOneLoad() throws Exception {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+
+    List<Future<String>> results = callConcurrently(singleFlight, release, loads, null);
+    release.countDown();
+
+    for(Future<String> result : results) {
+      assertEquals("loaded", result.get(10, TimeUnit.SECONDS));
+    }
+    assertEquals(1, loads.get());
+    assertEquals(1, singleFlight.getLeaders());
+    assertEquals(CALLERS - 1, singleFlight.getCoalesced());
+  }
+
+  @Test
+  @DisplayName("Check a failed load is rethrown to every waiting caller")
+  void testFailurePropagatesToWaiters() throws Exception {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    IllegalStateException failure = new IllegalStateException("Table not found");
+
+    List<Future<String>> results = callConcurrently(singleFlight, release, loads, failure);
+    release.countDown();
+
+    for(Future<String> result : results) {
+      try {
+        result.get(10, TimeUnit.SECONDS);
+        fail("Expected the load failure");
+      } catch (ExecutionException e) {
+        assertSame(failure, e.getCause());
+      }
+    }
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  @DisplayName("Check the key is released once a load completes or fails")
+  void testKeyIsReleasedAfterLoad() {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    assertEquals("first", singleFlight.execute("feed", () -> "first"));
+    assertEquals("second", singleFlight.execute("feed", () -> "second"));
+
+    try {
+      singleFlight.execute("feed", () -> {
+        throw new IllegalStateException("Throttled");
+      });
+      fail("Expected the load failure");
+    } catch (IllegalStateException e) {
+      assertEquals("Throttled", e.getMessage());
+    }
+
+    assertEquals("third", singleFlight.execute("feed", () -> "third"));
+    assertEquals(4, singleFlight.getLeaders());
+    assertEquals(0, singleFlight.getCoalesced());
+  }
+}